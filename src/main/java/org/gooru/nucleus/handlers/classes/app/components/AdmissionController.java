@@ -0,0 +1,148 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Process wide admission control for the messages. It keeps track of the
+ * messages in flight and of the time spent by the requests waiting to get a
+ * connection from the DB pool. When the limits configured in
+ * "admission.control" section of config are breached, new messages are not
+ * admitted so that they can be rejected right away instead of waiting for pool
+ * connection timeout.
+ * <p>
+ * The connection wait is only considered while there are threads actually
+ * waiting for a connection, so that the controller recovers on its own once
+ * the pool drains. If the section is not present, every message is admitted.
+ */
+public final class AdmissionController implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionController.class);
+    private static final String ADMISSION_CONFIG_KEY = "admission.control";
+    private static final String MAX_IN_FLIGHT = "max.in.flight";
+    private static final String MAX_AWAITING_CONNECTION = "max.awaiting.connection";
+    private static final String MAX_CONNECTION_WAIT_MS = "max.connection.wait.ms";
+    private static final String RETRY_AFTER_SECONDS = "retry.after.seconds";
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 1L;
+    // Weight of the latest sample in moving average of connection wait
+    private static final double WAIT_SAMPLE_WEIGHT = 0.2;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger awaitingConnection = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile double connectionWaitAvgMs = 0;
+    private boolean enabled = false;
+    private int maxInFlight;
+    private int maxAwaitingConnection;
+    private long maxConnectionWaitMs;
+    private long retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+    private volatile boolean initialized = false;
+
+    private AdmissionController() {
+    }
+
+    public static AdmissionController getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject admissionConfig = config.getJsonObject(ADMISSION_CONFIG_KEY);
+                    if (admissionConfig == null || admissionConfig.isEmpty()) {
+                        LOGGER.info("Admission control not configured, all messages will be admitted");
+                    } else {
+                        maxInFlight = admissionConfig.getInteger(MAX_IN_FLIGHT, Integer.MAX_VALUE);
+                        maxAwaitingConnection = admissionConfig.getInteger(MAX_AWAITING_CONNECTION, Integer.MAX_VALUE);
+                        maxConnectionWaitMs = admissionConfig.getLong(MAX_CONNECTION_WAIT_MS, Long.MAX_VALUE);
+                        retryAfterSeconds = admissionConfig.getLong(RETRY_AFTER_SECONDS, DEFAULT_RETRY_AFTER_SECONDS);
+                        enabled = true;
+                        LOGGER.info(
+                            "Admission control enabled with max in flight '{}', max awaiting connection '{}' and max "
+                                + "connection wait '{}' ms", maxInFlight, maxAwaitingConnection, maxConnectionWaitMs);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Try to admit a message. If admitted, caller needs to call
+     * {@link #release()} once the processing is done.
+     *
+     * @return true if message is admitted
+     */
+    public boolean tryAdmit() {
+        if (!enabled) {
+            return true;
+        }
+        if (isConnectionPoolSaturated()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        if (enabled) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Should be called just before asking the pool for a connection, and
+     * should be followed by {@link #connectionAcquired(long)} irrespective of
+     * whether connection was obtained or not.
+     *
+     * @return start time to be passed to connectionAcquired
+     */
+    public long awaitingConnection() {
+        awaitingConnection.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void connectionAcquired(long startTime) {
+        awaitingConnection.decrementAndGet();
+        double waitMs = (System.nanoTime() - startTime) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        // Races between updates may lose a sample, which is fine for an
+        // average
+        connectionWaitAvgMs = connectionWaitAvgMs + WAIT_SAMPLE_WEIGHT * (waitMs - connectionWaitAvgMs);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public JsonObject getStats() {
+        return new JsonObject().put(MAX_IN_FLIGHT, maxInFlight).put("in.flight", inFlight.get())
+            .put("awaiting.connection", awaitingConnection.get())
+            .put("connection.wait.avg.ms", (long) connectionWaitAvgMs).put("rejected", rejected.get());
+    }
+
+    private boolean isConnectionPoolSaturated() {
+        int waiting = awaitingConnection.get();
+        if (waiting == 0) {
+            return false;
+        }
+        return waiting >= maxAwaitingConnection || connectionWaitAvgMs > maxConnectionWaitMs;
+    }
+
+    private static final class Holder {
+        private static final AdmissionController INSTANCE = new AdmissionController();
+    }
+}
@@ -14,6 +14,8 @@ public final class AppConfiguration implements Initializer {
     private static final String APP_CONFIG_KEY = "app.configuration";
     private static final String KEY = "__KEY__";
     private static final String CLASS_END_DATE_KEY = "class.end.date";
+    private static final String JOIN_MODE_KEY = "join.mode";
+    private static final String JOIN_MODE_UPSERT = "upsert";
     private static final JsonObject configuration = new JsonObject();
     private static final Logger LOGGER = LoggerFactory.getLogger(AppConfiguration.class);
 
@@ -47,6 +49,15 @@ public final class AppConfiguration implements Initializer {
         return configuration.getJsonObject(KEY).getString(CLASS_END_DATE_KEY);
     }
 
+    /**
+     * Whether students join the class by single upsert statement, instead of
+     * looking up class and membership before writing it
+     */
+    public boolean isUpsertJoinMode() {
+        JsonObject appConfiguration = configuration.getJsonObject(KEY);
+        return appConfiguration != null && JOIN_MODE_UPSERT.equalsIgnoreCase(appConfiguration.getString(JOIN_MODE_KEY));
+    }
+
     private static final class Holder {
         private static final AppConfiguration INSTANCE = new AppConfiguration();
     }
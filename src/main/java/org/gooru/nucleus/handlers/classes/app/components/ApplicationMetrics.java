@@ -0,0 +1,143 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Holder of the metric registry of this module. Latency of each phase of
+ * request processing is recorded per operation, in a timer named
+ * "op.&lt;operation&gt;.&lt;phase&gt;". The same registry is handed over to
+ * Hikari, so pool metrics sit along with the phase timers.
+ * <p>
+ * Operation of the request being run by current thread is tracked, so that
+ * phases which do not know about the request could still be attributed to it.
+ * Ops which are not known are recorded as "unknown", so that a client sending
+ * bogus ops does not grow the registry. Recording is skipped if
+ * "metrics.enabled" is false in config.
+ * <p>
+ * Counting of DB round trips per request wraps every JDBC connection and
+ * statement in a proxy, so it is only done if "metrics.round.trips" is true.
+ */
+public final class ApplicationMetrics implements Initializer {
+
+    public static final String PHASE_QUEUE = "queue";
+    public static final String PHASE_SANITY = "sanity";
+    public static final String PHASE_CONNECTION = "connection";
+    public static final String PHASE_VALIDATE = "validate";
+    public static final String PHASE_EXECUTE = "execute";
+    public static final String PHASE_COMMIT = "commit";
+    public static final String PHASE_FORMAT = "format";
+    public static final String PHASE_REPLY = "reply";
+    public static final String PHASE_TOTAL = "total";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationMetrics.class);
+    private static final String METRICS_ENABLED = "metrics.enabled";
+    private static final String METRICS_ROUND_TRIPS = "metrics.round.trips";
+    private static final String OP_PREFIX = "op";
+    private static final String UNKNOWN_OP = "unknown";
+    private static final Set<String> KNOWN_OPS = new HashSet<>(Arrays.asList(MessageConstants.MSG_OP_CLASS_CREATE,
+        MessageConstants.MSG_OP_CLASS_UPDATE, MessageConstants.MSG_OP_CLASS_DELETE, MessageConstants.MSG_OP_CLASS_GET,
+        MessageConstants.MSG_OP_CLASS_MEMBERS_GET, MessageConstants.MSG_OP_CLASS_COLLABORATORS_UPDATE,
+        MessageConstants.MSG_OP_CLASS_LIST, MessageConstants.MSG_OP_CLASS_LIST_FOR_COURSE,
+        MessageConstants.MSG_OP_CLASS_JOIN, MessageConstants.MSG_OP_CLASS_INVITE,
+        MessageConstants.MSG_OP_CLASS_COURSE_ASSOCIATION, MessageConstants.MSG_OP_CLASS_SET_CONTENT_VISIBILITY,
+        MessageConstants.MSG_OP_CLASS_GET_CONTENT_VISIBILITY_STATS,
+        MessageConstants.MSG_OP_CLASS_GET_CONTENT_VISIBILITY,
+        MessageConstants.MSG_OP_CLASS_INVITE_REMOVE, MessageConstants.MSG_OP_CLASS_REMOVE_STUDENT));
+    private static final ThreadLocal<String> CURRENT_OP = new ThreadLocal<>();
+    private final MetricRegistry registry = new MetricRegistry();
+    private volatile boolean enabled = true;
+    private volatile boolean roundTripsEnabled = false;
+    private volatile boolean initialized = false;
+
+    private ApplicationMetrics() {
+    }
+
+    public static ApplicationMetrics getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    enabled = config.getBoolean(METRICS_ENABLED, true);
+                    roundTripsEnabled = enabled && config.getBoolean(METRICS_ROUND_TRIPS, false);
+                    LOGGER.info("Metrics are {}, with round trip counting {}", enabled ? "enabled" : "disabled",
+                        roundTripsEnabled ? "enabled" : "disabled");
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    public boolean isRoundTripsEnabled() {
+        return roundTripsEnabled;
+    }
+
+    public void setCurrentOp(String op) {
+        CURRENT_OP.set(op);
+    }
+
+    public void clearCurrentOp() {
+        CURRENT_OP.remove();
+    }
+
+    /**
+     * Record the time since start for the phase of specified operation
+     *
+     * @param op Operation, current thread's operation is used if null
+     * @param phase Phase of processing
+     * @param startNanos Value of System.nanoTime() when phase started
+     */
+    public void recordPhase(String op, String phase, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        String operation = op != null ? op : CURRENT_OP.get();
+        registry.timer(MetricRegistry.name(OP_PREFIX, KNOWN_OPS.contains(operation) ? operation : UNKNOWN_OP, phase))
+            .update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Snapshot of all the timers in registry, with durations in milliseconds
+     */
+    public JsonObject getTimerStats() {
+        JsonObject stats = new JsonObject();
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            Snapshot snapshot = entry.getValue().getSnapshot();
+            stats.put(entry.getKey(),
+                new JsonObject().put("count", entry.getValue().getCount()).put("mean", toMillis(snapshot.getMean()))
+                    .put("p50", toMillis(snapshot.getMedian())).put("p95", toMillis(snapshot.get95thPercentile()))
+                    .put("p99", toMillis(snapshot.get99thPercentile())).put("max", toMillis(snapshot.getMax())));
+        }
+        return stats;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class Holder {
+        private static final ApplicationMetrics INSTANCE = new ApplicationMetrics();
+    }
+}
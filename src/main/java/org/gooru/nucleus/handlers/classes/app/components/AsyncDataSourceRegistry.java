@@ -0,0 +1,68 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.asyncsql.AsyncSQLClient;
+import io.vertx.ext.asyncsql.PostgreSQLClient;
+
+/**
+ * Registry for the non blocking Postgres client which is used by the reads
+ * that are served on event loop. The client is configured from
+ * "asyncDataSource" section of config, which takes the settings understood by
+ * Vert.x PostgreSQL client (host, port, database, username, password,
+ * maxPoolSize). If the section is not present, no client is created.
+ */
+public final class AsyncDataSourceRegistry implements Initializer, Finalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncDataSourceRegistry.class);
+    private static final String ASYNC_DATA_SOURCE = "asyncDataSource";
+    private AsyncSQLClient client;
+    private volatile boolean initialized = false;
+
+    private AsyncDataSourceRegistry() {
+    }
+
+    public static AsyncDataSourceRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject dsConfig = config.getJsonObject(ASYNC_DATA_SOURCE);
+                    if (dsConfig == null || dsConfig.isEmpty()) {
+                        LOGGER.info("Async data source not configured");
+                    } else {
+                        client = PostgreSQLClient.createShared(vertx, dsConfig, ASYNC_DATA_SOURCE);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the async client, or null if it is not configured
+     */
+    public AsyncSQLClient getAsyncClient() {
+        return client;
+    }
+
+    @Override
+    public void finalizeComponent() {
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private static final class Holder {
+        private static final AsyncDataSourceRegistry INSTANCE = new AsyncDataSourceRegistry();
+    }
+}
@@ -0,0 +1,128 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Cache of authorization decisions which allowed a user in a role on a class,
+ * keyed by class, so that any write on the class, e.g. join, removal or
+ * collaborator update, invalidates all the decisions for it once committed.
+ * Denials are not cached, so that a user who has just joined is not held back.
+ * <p>
+ * Decision made while an invalidation happened is not cached, as it may have
+ * been made before the write was committed. Settings are read from
+ * "authorization.cache" section of config; cache is disabled if the section is
+ * absent.
+ */
+public final class AuthorizationCache implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthorizationCache.class);
+    private static final String CACHE_CONFIG_KEY = "authorization.cache";
+    private static final String ENABLED = "enabled";
+    private static final String MAX_SIZE = "max.size";
+    private static final String TTL_SECONDS = "ttl.seconds";
+    private static final int DEFAULT_MAX_SIZE = 10000;
+    private static final long DEFAULT_TTL_SECONDS = 30L;
+    // Allowed user and role pairs by class
+    private ExpiringCache<String, Set<String>> cache;
+    private long version = 0;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private AuthorizationCache() {
+    }
+
+    public static AuthorizationCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject cacheConfig = config.getJsonObject(CACHE_CONFIG_KEY, new JsonObject());
+                    if (cacheConfig.getBoolean(ENABLED, false)) {
+                        int maxSize = cacheConfig.getInteger(MAX_SIZE, DEFAULT_MAX_SIZE);
+                        long ttl = cacheConfig.getLong(TTL_SECONDS, DEFAULT_TTL_SECONDS);
+                        cache = new ExpiringCache<>(CACHE_CONFIG_KEY, maxSize, ttl * 1000);
+                        enabled = true;
+                        LOGGER.info("Authorization cache enabled with max size '{}' and ttl '{}' seconds", maxSize,
+                            ttl);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Version to be passed to {@link #putAllowed} for decision made after this
+     * call
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized boolean isAllowed(String userId, String classId, String role) {
+        if (!enabled) {
+            return false;
+        }
+        Set<String> allowed = cache.get(classId);
+        return allowed != null && allowed.contains(key(userId, role));
+    }
+
+    public synchronized void putAllowed(String userId, String classId, String role, long decidedAtVersion) {
+        if (!enabled || decidedAtVersion != version) {
+            return;
+        }
+        Set<String> allowed = cache.get(classId);
+        if (allowed == null) {
+            // Decisions of the class expire together, from the first one
+            allowed = new HashSet<>();
+            cache.put(classId, allowed);
+        }
+        allowed.add(key(userId, role));
+    }
+
+    public synchronized void invalidate(String classId) {
+        if (!enabled || classId == null) {
+            return;
+        }
+        version++;
+        cache.remove(classId);
+    }
+
+    /**
+     * Drop all decisions, when invalidations may have been missed
+     */
+    public synchronized void clear() {
+        if (enabled) {
+            version++;
+            cache.clear();
+        }
+    }
+
+    public synchronized JsonObject getStats() {
+        return enabled ? cache.getStats() : new JsonObject();
+    }
+
+    private static String key(String userId, String role) {
+        return userId + '/' + role;
+    }
+
+    private static final class Holder {
+        private static final AuthorizationCache INSTANCE = new AuthorizationCache();
+    }
+}
@@ -0,0 +1,114 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Cache of class rows, keyed by class id. Entries are snapshots of attributes
+ * of the row which cannot be modified; models built from them are to be used
+ * for reads only, e.g. validation and authorization. Writes to class
+ * invalidate its entry once they are committed.
+ * <p>
+ * A snapshot read while an invalidation happened is not cached, as it may have
+ * been read before the write was committed. Settings are read from
+ * "class.cache" section of config; cache is disabled if the section is absent.
+ */
+public final class ClassCache implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassCache.class);
+    private static final String CACHE_CONFIG_KEY = "class.cache";
+    private static final String ENABLED = "enabled";
+    private static final String MAX_SIZE = "max.size";
+    private static final String TTL_SECONDS = "ttl.seconds";
+    private static final int DEFAULT_MAX_SIZE = 10000;
+    private static final long DEFAULT_TTL_SECONDS = 30L;
+    private ExpiringCache<String, Map<String, Object>> cache;
+    private long version = 0;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private ClassCache() {
+    }
+
+    public static ClassCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject cacheConfig = config.getJsonObject(CACHE_CONFIG_KEY, new JsonObject());
+                    if (cacheConfig.getBoolean(ENABLED, false)) {
+                        int maxSize = cacheConfig.getInteger(MAX_SIZE, DEFAULT_MAX_SIZE);
+                        long ttl = cacheConfig.getLong(TTL_SECONDS, DEFAULT_TTL_SECONDS);
+                        cache = new ExpiringCache<>(CACHE_CONFIG_KEY, maxSize, ttl * 1000);
+                        enabled = true;
+                        LOGGER.info("Class cache enabled with max size '{}' and ttl '{}' seconds", maxSize, ttl);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Version to be passed to {@link #put} for snapshot read after this call
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * @return snapshot of class attributes, or null
+     */
+    public synchronized Map<String, Object> get(String classId) {
+        return enabled ? cache.get(classId) : null;
+    }
+
+    public synchronized void put(String classId, long readAtVersion, Map<String, Object> attributes) {
+        if (!enabled || readAtVersion != version) {
+            return;
+        }
+        cache.put(classId, Collections.unmodifiableMap(new HashMap<>(attributes)));
+    }
+
+    public synchronized void invalidate(String classId) {
+        if (!enabled || classId == null) {
+            return;
+        }
+        version++;
+        cache.remove(classId);
+    }
+
+    /**
+     * Drop all entries, when invalidations may have been missed
+     */
+    public synchronized void clear() {
+        if (enabled) {
+            version++;
+            cache.clear();
+        }
+    }
+
+    public synchronized JsonObject getStats() {
+        return enabled ? cache.getStats() : new JsonObject();
+    }
+
+    private static final class Holder {
+        private static final ClassCache INSTANCE = new ClassCache();
+    }
+}
@@ -0,0 +1,247 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.javalite.activejdbc.Base;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Index of class codes, made of a Bloom filter of all the codes issued so far
+ * and a cache of class id by code. The filter is kept current outside of
+ * request path: it is loaded at startup, codes generated here are added as
+ * they are issued, codes issued by other nodes come with invalidation bus,
+ * and recently created codes are synced from DB in background at configured
+ * interval. Sync covers codes created by other writers of class table, and
+ * those published on bus while this node missed it; when a gap is found in
+ * bus, all the codes are synced again.
+ * <p>
+ * So a code which is not in filter does not belong to any class, be it a typo
+ * or a guess, and a generated code which is not in filter does not need to be
+ * checked for uniqueness in DB. Code issued on other node could be missed by
+ * requests for as long as it takes to reach here by bus, or by sync when bus
+ * is not enabled; generating that very code within the window is as unlikely
+ * as any clash of random codes. Sync looks for classes created a minute before
+ * the previous sync as well, to cover transactions which were not committed by
+ * then. For sync to be cheap, class table is expected to have an index on
+ * created_at.
+ * <p>
+ * Settings are read from "class.code.index" section of config; until enabled
+ * there and loaded, every code is taken to be possibly present.
+ */
+public final class ClassCodeIndex implements Initializer, Finalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassCodeIndex.class);
+    private static final String CODE_INDEX_CONFIG_KEY = "class.code.index";
+    private static final String ENABLED = "enabled";
+    private static final String EXPECTED_CODES = "expected.codes";
+    private static final String FALSE_POSITIVE_RATE = "false.positive.rate";
+    private static final String CACHE_MAX_SIZE = "cache.max.size";
+    private static final String CACHE_TTL_SECONDS = "cache.ttl.seconds";
+    private static final String SYNC_INTERVAL_MS = "sync.interval.ms";
+    private static final long DEFAULT_EXPECTED_CODES = 1000000L;
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+    private static final int DEFAULT_CACHE_MAX_SIZE = 10000;
+    private static final long DEFAULT_CACHE_TTL_SECONDS = 300L;
+    private static final long DEFAULT_SYNC_INTERVAL_MS = 1000L;
+    private static final long SYNC_SLACK_MS = 60000L;
+    private static final String CODE = "code";
+    private static final String SELECT_ALL_CODES = "SELECT code FROM class WHERE code IS NOT NULL";
+    private static final String SELECT_RECENT_CODES =
+        "SELECT code FROM class WHERE code IS NOT NULL AND created_at > now() - (? * interval '1 millisecond')";
+    private final AtomicBoolean syncing = new AtomicBoolean(false);
+    private final AtomicBoolean resyncPending = new AtomicBoolean(false);
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong uniquenessChecksSkipped = new AtomicLong();
+    private BloomFilter filter;
+    private ExpiringCache<String, String> classIds;
+    private Vertx vertx;
+    private long syncTimerId;
+    // Start of last successful sync, only touched by the sync in progress
+    private long lastSyncMillis;
+    private volatile boolean enabled = false;
+    private volatile boolean loaded = false;
+    private volatile boolean initialized = false;
+
+    private ClassCodeIndex() {
+    }
+
+    public static ClassCodeIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject indexConfig = config.getJsonObject(CODE_INDEX_CONFIG_KEY, new JsonObject());
+                    if (indexConfig.getBoolean(ENABLED, false)) {
+                        filter = new BloomFilter(indexConfig.getLong(EXPECTED_CODES, DEFAULT_EXPECTED_CODES),
+                            indexConfig.getDouble(FALSE_POSITIVE_RATE, DEFAULT_FALSE_POSITIVE_RATE));
+                        classIds = new ExpiringCache<>(CODE_INDEX_CONFIG_KEY,
+                            indexConfig.getInteger(CACHE_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE),
+                            indexConfig.getLong(CACHE_TTL_SECONDS, DEFAULT_CACHE_TTL_SECONDS) * 1000);
+                        this.vertx = vertx;
+                        enabled = true;
+                        // Nothing loaded yet, so first sync loads all the codes
+                        scheduleSync();
+                        syncTimerId = vertx.setPeriodic(
+                            indexConfig.getLong(SYNC_INTERVAL_MS, DEFAULT_SYNC_INTERVAL_MS), id -> scheduleSync());
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find out if there could be a class with the code
+     *
+     * @return false if there is definitely no class with the code
+     */
+    public boolean mightExist(String code) {
+        if (isAbsent(code)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Find out if generated code could have been issued already, so that
+     * uniqueness check in DB can be skipped otherwise
+     *
+     * @return false if code is definitely unused
+     */
+    public boolean mightBeIssued(String code) {
+        if (isAbsent(code)) {
+            uniquenessChecksSkipped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void codeIssued(String code) {
+        if (enabled) {
+            filter.add(code);
+        }
+    }
+
+    /**
+     * Sync all the codes again, e.g. when codes published by other nodes may
+     * have been missed
+     */
+    public void resync() {
+        if (enabled) {
+            resyncPending.set(true);
+            scheduleSync();
+        }
+    }
+
+    /**
+     * @return id of class with the code as last looked up, or null
+     */
+    public String getClassId(String code) {
+        return enabled ? classIds.get(code) : null;
+    }
+
+    public void putClassId(String code, String classId) {
+        if (enabled) {
+            classIds.put(code, classId);
+        }
+    }
+
+    public void removeClassId(String code) {
+        if (enabled) {
+            classIds.remove(code);
+        }
+    }
+
+    public JsonObject getStats() {
+        if (!enabled) {
+            return new JsonObject();
+        }
+        return new JsonObject().put("loaded", loaded).put("codes", filter.entries()).put("bits", filter.bitCount())
+            .put("hashes", filter.hashCount()).put("syncs", syncs.get()).put("resyncs", resyncs.get())
+            .put("rejected", rejected.get())
+            .put("uniqueness.checks.skipped", uniquenessChecksSkipped.get()).put("class.ids", classIds.getStats());
+    }
+
+    @Override
+    public void finalizeComponent() {
+        if (enabled) {
+            vertx.cancelTimer(syncTimerId);
+        }
+    }
+
+    private boolean isAbsent(String code) {
+        return loaded && !filter.mightContain(code);
+    }
+
+    private void scheduleSync() {
+        // Skip if a sync is running, resync pending by then is done next time
+        if (!syncing.compareAndSet(false, true)) {
+            return;
+        }
+        vertx.<Long>executeBlocking(future -> future.complete(sync()), false, result -> {
+            syncing.set(false);
+            if (result.failed()) {
+                LOGGER.warn("Not able to sync class codes", result.cause());
+            } else if (result.result() >= 0) {
+                loaded = true;
+                LOGGER.info("Loaded '{}' class codes in index", result.result());
+            }
+        });
+    }
+
+    /*
+     * Sync codes created since previous sync, or all of them if nothing is
+     * loaded yet or resync is asked for. Returns count of codes in index after
+     * loading all of them, else -1.
+     */
+    private long sync() {
+        boolean full = !loaded || resyncPending.getAndSet(false);
+        long now = System.currentTimeMillis();
+        try {
+            Base.open(DataSourceRegistry.getInstance().getDefaultDataSource());
+            if (full) {
+                Base.find(SELECT_ALL_CODES).with(row -> {
+                    filter.add(String.valueOf(row.get(CODE)));
+                    return true;
+                });
+            } else {
+                Base.findAll(SELECT_RECENT_CODES, now - lastSyncMillis + SYNC_SLACK_MS)
+                    .forEach(row -> filter.add(String.valueOf(row.get(CODE))));
+            }
+        } catch (Throwable e) {
+            if (full && loaded) {
+                resyncPending.set(true);
+            }
+            throw e;
+        } finally {
+            Base.close();
+        }
+        lastSyncMillis = now;
+        if (!full) {
+            syncs.incrementAndGet();
+            return -1;
+        }
+        if (loaded) {
+            resyncs.incrementAndGet();
+        }
+        return filter.entries();
+    }
+
+    private static final class Holder {
+        private static final ClassCodeIndex INSTANCE = new ClassCodeIndex();
+    }
+}
@@ -0,0 +1,61 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Content of course which is visible in a class, as bits over positions of
+ * course catalog. It does not change once built; marking more content visible
+ * builds a new one, so that it could be read without locking.
+ */
+public final class ClassVisibleContent {
+
+    private final CourseContentCatalog catalog;
+    private final BitSet visible;
+
+    private ClassVisibleContent(CourseContentCatalog catalog, BitSet visible) {
+        this.catalog = catalog;
+        this.visible = visible;
+    }
+
+    /**
+     * @return visible content, or null if any of the ids is not in catalog
+     */
+    public static ClassVisibleContent of(CourseContentCatalog catalog, Collection<?> visibleIds) {
+        return new ClassVisibleContent(catalog, new BitSet(catalog.size())).withVisible(visibleIds);
+    }
+
+    /**
+     * @return visible content with the ids marked visible as well, or null if
+     *         any of them is not in catalog
+     */
+    public ClassVisibleContent withVisible(Collection<?> ids) {
+        BitSet bits = (BitSet) visible.clone();
+        for (Object id : ids) {
+            int position = catalog.positionOf(String.valueOf(id));
+            if (position < 0) {
+                return null;
+            }
+            bits.set(position);
+        }
+        return new ClassVisibleContent(catalog, bits);
+    }
+
+    public CourseContentCatalog catalog() {
+        return catalog;
+    }
+
+    public String courseId() {
+        return catalog.courseId();
+    }
+
+    /**
+     * Run the action for catalog position of each visible content
+     */
+    public void forEachVisible(IntConsumer action) {
+        for (int i = visible.nextSetBit(0); i >= 0; i = visible.nextSetBit(i + 1)) {
+            action.accept(i);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Cache of the classes for user response, keyed by user. Along with the
+ * response, it keeps track of the classes included in it, so that a write on
+ * any of those classes invalidates the response. Writes which bring a user to
+ * a class, e.g. join or collaborator addition, invalidate by user.
+ * <p>
+ * A response computed while an invalidation happened is not cached, as it may
+ * have been read before the write was committed. Settings are read from
+ * "classes.for.user.cache" section of config; cache is disabled if the section
+ * is absent.
+ */
+public final class ClassesForUserCache implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassesForUserCache.class);
+    private static final String CACHE_CONFIG_KEY = "classes.for.user.cache";
+    private static final String ENABLED = "enabled";
+    private static final String MAX_SIZE = "max.size";
+    private static final String TTL_SECONDS = "ttl.seconds";
+    private static final int DEFAULT_MAX_SIZE = 10000;
+    private static final long DEFAULT_TTL_SECONDS = 60L;
+    // Users whose cached response includes the class
+    private final Map<String, Set<String>> usersByClass = new HashMap<>();
+    private ExpiringCache<String, CachedResponse> cache;
+    private long version = 0;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private ClassesForUserCache() {
+    }
+
+    public static ClassesForUserCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject cacheConfig = config.getJsonObject(CACHE_CONFIG_KEY, new JsonObject());
+                    if (cacheConfig.getBoolean(ENABLED, false)) {
+                        int maxSize = cacheConfig.getInteger(MAX_SIZE, DEFAULT_MAX_SIZE);
+                        long ttl = cacheConfig.getLong(TTL_SECONDS, DEFAULT_TTL_SECONDS);
+                        cache = new ExpiringCache<>(CACHE_CONFIG_KEY, maxSize, ttl * 1000, this::unindex);
+                        enabled = true;
+                        LOGGER.info("Classes for user cache enabled with max size '{}' and ttl '{}' seconds", maxSize,
+                            ttl);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Version to be passed to {@link #put} for response computed after this
+     * call
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * @return copy of cached response for user, or null
+     */
+    public synchronized JsonObject get(String userId) {
+        if (!enabled) {
+            return null;
+        }
+        CachedResponse cached = cache.get(userId);
+        return cached != null ? cached.response.copy() : null;
+    }
+
+    public synchronized void put(String userId, long computedAtVersion, JsonObject response,
+        Collection<String> classIds) {
+        if (!enabled || computedAtVersion != version) {
+            return;
+        }
+        CachedResponse cached = new CachedResponse(response.copy(), new HashSet<>(classIds));
+        cache.put(userId, cached);
+        for (String classId : cached.classIds) {
+            usersByClass.computeIfAbsent(classId, k -> new HashSet<>()).add(userId);
+        }
+    }
+
+    /**
+     * Invalidate the responses which include specified class, as well as those
+     * of specified users
+     *
+     * @param classId Class which was written, may be null
+     * @param userIds Users who may have been associated with the class
+     */
+    public synchronized void invalidate(String classId, Collection<String> userIds) {
+        if (!enabled) {
+            return;
+        }
+        version++;
+        if (classId != null) {
+            Set<String> users = usersByClass.remove(classId);
+            if (users != null) {
+                users.forEach(cache::remove);
+            }
+        }
+        userIds.forEach(cache::remove);
+    }
+
+    /**
+     * Drop all responses, when invalidations may have been missed
+     */
+    public synchronized void clear() {
+        if (enabled) {
+            version++;
+            cache.clear();
+        }
+    }
+
+    public synchronized JsonObject getStats() {
+        return enabled ? cache.getStats() : new JsonObject();
+    }
+
+    // Called by cache, with this instance locked, when an entry goes away
+    private void unindex(String userId, CachedResponse cached) {
+        for (String classId : cached.classIds) {
+            Set<String> users = usersByClass.get(classId);
+            if (users != null) {
+                users.remove(userId);
+                if (users.isEmpty()) {
+                    usersByClass.remove(classId);
+                }
+            }
+        }
+    }
+
+    private static final class CachedResponse {
+        private final JsonObject response;
+        private final Set<String> classIds;
+
+        CachedResponse(JsonObject response, Set<String> classIds) {
+            this.response = response;
+            this.classIds = classIds;
+        }
+    }
+
+    private static final class Holder {
+        private static final ClassesForUserCache INSTANCE = new ClassesForUserCache();
+    }
+}
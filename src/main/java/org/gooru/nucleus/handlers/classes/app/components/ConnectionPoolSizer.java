@@ -0,0 +1,104 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Derives the size of DB connection pool from the number of requests which
+ * can hit DB at the same time in this process:
+ * <ul>
+ * <li>Ordered dispatch runs one request per verticle instance</li>
+ * <li>Unordered dispatch with worker pools runs as many requests as the pools
+ * have threads, pools being shared by all instances</li>
+ * <li>Unordered dispatch without worker pools runs max concurrency requests per
+ * instance, limited by Vert.x worker pool size</li>
+ * </ul>
+ * The cap, "max.db.connections" from "deployment" section, should reflect the
+ * share of DB connections this node is allowed, so it is for all the pools of
+ * the process: what is left of it after pools of fixed size is split evenly
+ * between the pools which are sized "auto". Connections of the async client
+ * count as a pool of fixed size.
+ * <p>
+ * Vert.x worker pool size can only be set at command line, so it is read from
+ * the running Vert.x rather than from config.
+ */
+public final class ConnectionPoolSizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPoolSizer.class);
+    // Set by verticle from its deployment, not expected in config file
+    public static final String DEPLOYMENT_INSTANCES = "deployment.instances";
+    public static final String POOL_SIZE_AUTO = "auto";
+    private static final String DEPLOYMENT = "deployment";
+    private static final String MAX_DB_CONNECTIONS = "max.db.connections";
+    private static final String DISPATCH = "dispatch";
+    private static final String DISPATCH_MODE = "mode";
+    private static final String DISPATCH_MODE_UNORDERED = "unordered";
+    private static final String MAX_CONCURRENCY = "max.concurrency";
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+    private static final String WORKER_POOLS = "worker.pools";
+    private static final String POOLS = "pools";
+    private static final String POOL_SIZE = "size";
+    private static final int DEFAULT_WORKER_POOL_THREADS = 10;
+
+    private ConnectionPoolSizer() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @param autoPools Number of pools which would be of the derived size
+     * @param fixedConnections Connections taken by pools of configured size
+     * @return size of each of the auto sized pools
+     */
+    public static int derivePoolSize(Vertx vertx, JsonObject config, int autoPools, int fixedConnections) {
+        int instances = config.getInteger(DEPLOYMENT_INSTANCES, 1);
+        JsonObject deployment = config.getJsonObject(DEPLOYMENT, new JsonObject());
+        int vertxWorkers = vertxWorkerPoolSize(vertx);
+        int maxConnections = deployment.getInteger(MAX_DB_CONNECTIONS, Integer.MAX_VALUE);
+
+        JsonObject dispatch = config.getJsonObject(DISPATCH);
+        JsonObject workerPools = config.getJsonObject(WORKER_POOLS);
+        int demand;
+        String basis;
+        if (dispatch == null || !DISPATCH_MODE_UNORDERED.equalsIgnoreCase(dispatch.getString(DISPATCH_MODE))) {
+            demand = Math.min(instances, vertxWorkers);
+            basis = "ordered dispatch";
+        } else if (workerPools != null && !workerPools.isEmpty()) {
+            demand = 0;
+            for (Map.Entry<String, Object> pool : workerPools.getJsonObject(POOLS, new JsonObject())) {
+                demand += ((JsonObject) pool.getValue()).getInteger(POOL_SIZE, DEFAULT_WORKER_POOL_THREADS);
+            }
+            basis = "worker pools";
+        } else {
+            demand = Math.min(instances * dispatch.getInteger(MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY), vertxWorkers);
+            basis = "unordered dispatch";
+        }
+        int share = maxConnections == Integer.MAX_VALUE ? maxConnections
+            : (maxConnections - fixedConnections) / Math.max(1, autoPools);
+        int size = Math.max(1, Math.min(demand, share));
+        LOGGER.info("DB pool size '{}' derived from {}: instances '{}', vertx workers '{}', demand '{}', cap '{}' "
+            + "less '{}' of fixed pools split between '{}' pools", size, basis, instances, vertxWorkers, demand,
+            maxConnections, fixedConnections, autoPools);
+        return size;
+    }
+
+    private static int vertxWorkerPoolSize(Vertx vertx) {
+        if (vertx instanceof VertxInternal) {
+            ExecutorService workerPool = ((VertxInternal) vertx).getWorkerPool();
+            if (workerPool instanceof ThreadPoolExecutor) {
+                return ((ThreadPoolExecutor) workerPool).getMaximumPoolSize();
+            }
+        }
+        LOGGER.warn("Not able to find size of Vert.x worker pool, assuming default '{}'",
+            VertxOptions.DEFAULT_WORKER_POOL_SIZE);
+        return VertxOptions.DEFAULT_WORKER_POOL_SIZE;
+    }
+}
@@ -0,0 +1,96 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collections and assessments of a course which are not deleted, laid out by
+ * position, so that sets of them could be kept as bits over the positions.
+ * Catalog does not change once built; unit, lesson and format strings are
+ * shared among the entries.
+ */
+public final class CourseContentCatalog {
+
+    private final String courseId;
+    private final String[] ids;
+    private final String[] formats;
+    private final String[] unitIds;
+    private final String[] lessonIds;
+    private final Map<String, Integer> positions;
+
+    private CourseContentCatalog(Builder builder) {
+        this.courseId = builder.courseId;
+        int size = builder.ids.size();
+        this.ids = builder.ids.toArray(new String[size]);
+        this.formats = builder.formats.toArray(new String[size]);
+        this.unitIds = builder.unitIds.toArray(new String[size]);
+        this.lessonIds = builder.lessonIds.toArray(new String[size]);
+        this.positions = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            positions.put(ids[i], i);
+        }
+    }
+
+    public String courseId() {
+        return courseId;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return position of content in catalog, or -1 if it is not there
+     */
+    public int positionOf(String id) {
+        Integer position = positions.get(id.toLowerCase());
+        return position != null ? position : -1;
+    }
+
+    public String id(int position) {
+        return ids[position];
+    }
+
+    public String format(int position) {
+        return formats[position];
+    }
+
+    public String unitId(int position) {
+        return unitIds[position];
+    }
+
+    public String lessonId(int position) {
+        return lessonIds[position];
+    }
+
+    public static final class Builder {
+        private final String courseId;
+        private final List<String> ids = new ArrayList<>();
+        private final List<String> formats = new ArrayList<>();
+        private final List<String> unitIds = new ArrayList<>();
+        private final List<String> lessonIds = new ArrayList<>();
+        private final Map<String, String> shared = new HashMap<>();
+
+        public Builder(String courseId) {
+            this.courseId = courseId;
+        }
+
+        public Builder add(String id, String format, String unitId, String lessonId) {
+            ids.add(id.toLowerCase());
+            formats.add(share(format));
+            unitIds.add(share(unitId));
+            lessonIds.add(share(lessonId));
+            return this;
+        }
+
+        public CourseContentCatalog build() {
+            return new CourseContentCatalog(this);
+        }
+
+        private String share(String value) {
+            return value != null ? shared.computeIfAbsent(value, v -> v) : null;
+        }
+    }
+}
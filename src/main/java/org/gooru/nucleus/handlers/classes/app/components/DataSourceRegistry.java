@@ -1,7 +1,10 @@
 package org.gooru.nucleus.handlers.classes.app.components;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,14 +24,24 @@ import io.vertx.core.json.JsonObject;
 public final class DataSourceRegistry implements Initializer, Finalizer {
 
     private static final String DEFAULT_DATA_SOURCE = "defaultDataSource";
+    private static final String READ_ONLY_DATA_SOURCE = "readOnlyDataSource";
+    private static final String READ_REPLICAS = "readReplicas";
     private static final String DEFAULT_DATA_SOURCE_TYPE = "nucleus.ds.type";
     private static final String DS_HIKARI = "hikari";
+    private static final String MAXIMUM_POOL_SIZE = "maximumPoolSize";
+    // Async client is shared by instances, so it opens up to its max pool
+    // size for the process, 10 being the default of Vert.x client
+    private static final String ASYNC_DATA_SOURCE = "asyncDataSource";
+    private static final String ASYNC_MAX_POOL_SIZE = "maxPoolSize";
+    private static final int DEFAULT_ASYNC_MAX_POOL_SIZE = 10;
     private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceRegistry.class);
     // All the elements in this array are supposed to be present in config file
     // as keys as we are going to initialize them with the value associated with
     // that key
-    private final List<String> datasources = Arrays.asList(DEFAULT_DATA_SOURCE);
+    private final List<String> datasources = Arrays.asList(DEFAULT_DATA_SOURCE, READ_ONLY_DATA_SOURCE);
     private final Map<String, DataSource> registry = new HashMap<>();
+    // Replicas are named in config, hence kept separately
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
     private volatile boolean initialized = false;
 
     private DataSourceRegistry() {
@@ -51,13 +64,26 @@ public final class DataSourceRegistry implements Initializer, Finalizer {
                 LOGGER.debug("Will initialize after double checking");
                 if (!initialized) {
                     LOGGER.debug("Initializing now");
+                    JsonObject replicasConfig = config.getJsonObject(READ_REPLICAS, new JsonObject());
+                    int asyncConnections = asyncConnections(config);
+                    int autoPoolSize = autoPoolSize(vertx, config, replicasConfig, asyncConnections);
+                    int totalConnections = asyncConnections;
                     for (String datasource : datasources) {
                         JsonObject dbConfig = config.getJsonObject(datasource);
                         if (dbConfig != null) {
-                            DataSource ds = initializeDataSource(dbConfig);
+                            HikariDataSource ds = initializeDataSource(dbConfig, autoPoolSize);
+                            totalConnections += ds.getMaximumPoolSize();
                             registry.put(datasource, ds);
                         }
                     }
+                    for (Map.Entry<String, Object> entry : replicasConfig) {
+                        HikariDataSource ds = initializeDataSource((JsonObject) entry.getValue(), autoPoolSize);
+                        totalConnections += ds.getMaximumPoolSize();
+                        replicas.put(entry.getKey(), ds);
+                        LOGGER.info("Initialized read replica '{}'", entry.getKey());
+                    }
+                    LOGGER.info("DB pools and async client of this process may open '{}' connections in total",
+                        totalConnections);
                     initialized = true;
                 }
             }
@@ -68,14 +94,69 @@ public final class DataSourceRegistry implements Initializer, Finalizer {
         return registry.get(DEFAULT_DATA_SOURCE);
     }
 
+    /**
+     * Pool of connections which are set up read only with auto commit, for
+     * handlers which only read
+     *
+     * @return the read only data source, or null if it is not configured
+     */
+    public DataSource getReadOnlyDataSource() {
+        return registry.get(READ_ONLY_DATA_SOURCE);
+    }
+
+    /**
+     * Read replicas configured in "readReplicas" section, keyed by name. These
+     * are expected to be set up read only with auto commit.
+     */
+    public Map<String, DataSource> getReadReplicas() {
+        return Collections.unmodifiableMap(replicas);
+    }
+
     public DataSource getDataSourceByName(String name) {
         if (name != null) {
-            return registry.get(name);
+            DataSource ds = registry.get(name);
+            return ds != null ? ds : replicas.get(name);
         }
         return null;
     }
 
-    private DataSource initializeDataSource(JsonObject dbConfig) {
+    /*
+     * Pools sized "auto" share what the cap leaves after the pools of fixed
+     * size, so size is derived once for all of them
+     */
+    private int autoPoolSize(Vertx vertx, JsonObject config, JsonObject replicasConfig, int asyncConnections) {
+        List<JsonObject> poolConfigs = new ArrayList<>();
+        for (String datasource : datasources) {
+            JsonObject dbConfig = config.getJsonObject(datasource);
+            if (dbConfig != null) {
+                poolConfigs.add(dbConfig);
+            }
+        }
+        for (Map.Entry<String, Object> entry : replicasConfig) {
+            poolConfigs.add((JsonObject) entry.getValue());
+        }
+        int autoPools = 0;
+        int fixedConnections = asyncConnections;
+        for (JsonObject poolConfig : poolConfigs) {
+            Object size = poolConfig.getValue(MAXIMUM_POOL_SIZE);
+            if (ConnectionPoolSizer.POOL_SIZE_AUTO.equals(size)) {
+                autoPools++;
+            } else if (size instanceof Integer) {
+                fixedConnections += (Integer) size;
+            }
+        }
+        return autoPools == 0 ? 0 : ConnectionPoolSizer.derivePoolSize(vertx, config, autoPools, fixedConnections);
+    }
+
+    private static int asyncConnections(JsonObject config) {
+        JsonObject asyncConfig = config.getJsonObject(ASYNC_DATA_SOURCE);
+        if (asyncConfig == null || asyncConfig.isEmpty()) {
+            return 0;
+        }
+        return asyncConfig.getInteger(ASYNC_MAX_POOL_SIZE, DEFAULT_ASYNC_MAX_POOL_SIZE);
+    }
+
+    private HikariDataSource initializeDataSource(JsonObject dbConfig, int autoPoolSize) {
         // The default DS provider is hikari, so if set explicitly or not set
         // use it, else error out
         String dsType = dbConfig.getString(DEFAULT_DATA_SOURCE_TYPE);
@@ -117,11 +198,15 @@ public final class DataSourceRegistry implements Initializer, Finalizer {
             case "minimumIdle":
                 config.setMinimumIdle((Integer) entry.getValue());
                 break;
-            case "maximumPoolSize":
-                config.setMaximumPoolSize((Integer) entry.getValue());
+            case MAXIMUM_POOL_SIZE:
+                config.setMaximumPoolSize(maximumPoolSize(entry.getValue(), autoPoolSize));
                 break;
             case "metricRegistry":
-                throw new UnsupportedOperationException(entry.getKey());
+                // Only the registry of this module could be used
+                if (Boolean.TRUE.equals(entry.getValue())) {
+                    config.setMetricRegistry(ApplicationMetrics.getInstance().getRegistry());
+                }
+                break;
             case "healthCheckRegistry":
                 throw new UnsupportedOperationException(entry.getKey());
             case "poolName":
@@ -176,6 +261,16 @@ public final class DataSourceRegistry implements Initializer, Finalizer {
 
     }
 
+    private static int maximumPoolSize(Object value, int autoPoolSize) {
+        // Pool size could be derived from deployment, in which case the
+        // decision is logged once for all such pools
+        if (ConnectionPoolSizer.POOL_SIZE_AUTO.equals(value)) {
+            return autoPoolSize;
+        }
+        LOGGER.info("Using configured DB pool size '{}'", value);
+        return (Integer) value;
+    }
+
     @Override
     public void finalizeComponent() {
         for (String datasource : datasources) {
@@ -186,6 +281,11 @@ public final class DataSourceRegistry implements Initializer, Finalizer {
                 }
             }
         }
+        for (DataSource ds : replicas.values()) {
+            if (ds instanceof HikariDataSource) {
+                ((HikariDataSource) ds).close();
+            }
+        }
     }
 
     private static final class Holder {
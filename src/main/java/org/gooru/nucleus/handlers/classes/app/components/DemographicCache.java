@@ -0,0 +1,93 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Cache of user demographic summaries, i.e. name and thumbnail, keyed by user
+ * id. Demographics are owned by user service, so there is nothing here to
+ * invalidate them; changed names and thumbnails show up once the entry
+ * expires.
+ * <p>
+ * Settings are read from "demographic.cache" section of config; cache is
+ * disabled if the section is absent.
+ */
+public final class DemographicCache implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DemographicCache.class);
+    private static final String CACHE_CONFIG_KEY = "demographic.cache";
+    private static final String ENABLED = "enabled";
+    private static final String MAX_SIZE = "max.size";
+    private static final String TTL_SECONDS = "ttl.seconds";
+    private static final int DEFAULT_MAX_SIZE = 50000;
+    private static final long DEFAULT_TTL_SECONDS = 300L;
+    private ExpiringCache<String, JsonObject> cache;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private DemographicCache() {
+    }
+
+    public static DemographicCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject cacheConfig = config.getJsonObject(CACHE_CONFIG_KEY, new JsonObject());
+                    if (cacheConfig.getBoolean(ENABLED, false)) {
+                        int maxSize = cacheConfig.getInteger(MAX_SIZE, DEFAULT_MAX_SIZE);
+                        long ttl = cacheConfig.getLong(TTL_SECONDS, DEFAULT_TTL_SECONDS);
+                        cache = new ExpiringCache<>(CACHE_CONFIG_KEY, maxSize, ttl * 1000);
+                        enabled = true;
+                        LOGGER.info("Demographic cache enabled with max size '{}' and ttl '{}' seconds", maxSize, ttl);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return copies of cached summaries of the users, by user id; users which
+     *         are not in cache are left out
+     */
+    public Map<String, JsonObject> getAll(Collection<String> userIds) {
+        Map<String, JsonObject> summaries = new HashMap<>(userIds.size());
+        if (!enabled) {
+            return summaries;
+        }
+        for (String userId : userIds) {
+            JsonObject summary = cache.get(userId);
+            if (summary != null) {
+                summaries.put(userId, summary.copy());
+            }
+        }
+        return summaries;
+    }
+
+    public void put(String userId, JsonObject summary) {
+        if (enabled) {
+            cache.put(userId, summary.copy());
+        }
+    }
+
+    public JsonObject getStats() {
+        return enabled ? cache.getStats() : new JsonObject();
+    }
+
+    private static final class Holder {
+        private static final DemographicCache INSTANCE = new DemographicCache();
+    }
+}
@@ -0,0 +1,258 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.gooru.nucleus.handlers.classes.constants.MessagebusEndpoints;
+import org.javalite.activejdbc.Base;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Outbox for events, enabled by "event.outbox" section of config. When
+ * enabled, events are appended to outbox table in the same transaction which
+ * made the change, and a relay publishes them to event end point in batches.
+ * Delivery is at least once: events are sent with a reply handler and only the
+ * ones which are acknowledged are marked, the rest are sent again on next run.
+ * If the end point does not reply, set "relay.ack.required" to false; events
+ * are then marked unless the send fails with no handlers or recipient failure
+ * within "relay.ack.timeout.ms".
+ * <p>
+ * Rows are locked with SKIP LOCKED, so relays of different nodes do not
+ * publish same event. Published rows are retained for the configured hours;
+ * to replay events, reset their published_at to null.
+ * <p>
+ * Expected table:
+ *
+ * <pre>
+ * CREATE TABLE class_event_outbox (
+ *     id bigserial PRIMARY KEY,
+ *     event jsonb NOT NULL,
+ *     created_at timestamp NOT NULL DEFAULT now(),
+ *     published_at timestamp
+ * );
+ * CREATE INDEX class_event_outbox_pending_idx ON class_event_outbox (id) WHERE published_at IS NULL;
+ * </pre>
+ */
+public final class EventOutbox implements Initializer, Finalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventOutbox.class);
+    private static final String EVENT_OUTBOX_CONFIG_KEY = "event.outbox";
+    private static final String ENABLED = "enabled";
+    private static final String RELAY_INTERVAL_MS = "relay.interval.ms";
+    private static final String RELAY_BATCH_SIZE = "relay.batch.size";
+    private static final String RETENTION_HOURS = "retention.hours";
+    private static final String RELAY_ACK_REQUIRED = "relay.ack.required";
+    private static final String RELAY_ACK_TIMEOUT_MS = "relay.ack.timeout.ms";
+    private static final long DEFAULT_RELAY_INTERVAL_MS = 1000L;
+    private static final int DEFAULT_RELAY_BATCH_SIZE = 100;
+    private static final int DEFAULT_RETENTION_HOURS = 72;
+    private static final long DEFAULT_RELAY_ACK_TIMEOUT_MS = 5000L;
+    // Replies are delivered on event loop, allow them this much beyond timeout
+    private static final long ACK_WAIT_MARGIN_MS = 1000L;
+    private static final long PURGE_INTERVAL_MS = 3600000L;
+    private static final String INSERT_EVENT = "INSERT INTO class_event_outbox(event) VALUES (?::jsonb)";
+    private static final String SELECT_PENDING = "SELECT id, event::text AS event FROM class_event_outbox WHERE "
+        + "published_at IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String MARK_PUBLISHED = "UPDATE class_event_outbox SET published_at = now() WHERE id IN (%s)";
+    private static final String PURGE_PUBLISHED =
+        "DELETE FROM class_event_outbox WHERE published_at < now() - (? * interval '1 hour')";
+    private final AtomicBoolean relaying = new AtomicBoolean(false);
+    private Vertx vertx;
+    private int batchSize;
+    private int retentionHours;
+    private boolean ackRequired;
+    private DeliveryOptions deliveryOptions;
+    private long relayTimerId;
+    private long purgeTimerId;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private EventOutbox() {
+    }
+
+    public static EventOutbox getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject outboxConfig = config.getJsonObject(EVENT_OUTBOX_CONFIG_KEY, new JsonObject());
+                    if (outboxConfig.getBoolean(ENABLED, false)) {
+                        this.vertx = vertx;
+                        long interval = outboxConfig.getLong(RELAY_INTERVAL_MS, DEFAULT_RELAY_INTERVAL_MS);
+                        batchSize = outboxConfig.getInteger(RELAY_BATCH_SIZE, DEFAULT_RELAY_BATCH_SIZE);
+                        retentionHours = outboxConfig.getInteger(RETENTION_HOURS, DEFAULT_RETENTION_HOURS);
+                        ackRequired = outboxConfig.getBoolean(RELAY_ACK_REQUIRED, true);
+                        deliveryOptions = new DeliveryOptions().setSendTimeout(
+                            outboxConfig.getLong(RELAY_ACK_TIMEOUT_MS, DEFAULT_RELAY_ACK_TIMEOUT_MS));
+                        relayTimerId = vertx.setPeriodic(interval, id -> relay());
+                        purgeTimerId = vertx.setPeriodic(PURGE_INTERVAL_MS, id -> purge());
+                        enabled = true;
+                        LOGGER.info("Event outbox enabled with relay interval '{}' ms, batch size '{}' and ack "
+                            + "required '{}'", interval, batchSize, ackRequired);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append the event to outbox. This needs to be called with the DB
+     * connection of the transaction which made the change, so that event is
+     * committed or rolled back along with the change.
+     *
+     * @param event Event to be published
+     */
+    public void append(JsonObject event) {
+        Base.exec(INSERT_EVENT, event.encode());
+    }
+
+    @Override
+    public void finalizeComponent() {
+        if (enabled) {
+            vertx.cancelTimer(relayTimerId);
+            vertx.cancelTimer(purgeTimerId);
+        }
+    }
+
+    private void relay() {
+        // Skip the tick if previous run is still draining
+        if (!relaying.compareAndSet(false, true)) {
+            return;
+        }
+        vertx.<Integer>executeBlocking(future -> {
+            int published = 0;
+            int count;
+            // Stop draining once a batch is not fully delivered, rest is
+            // retried on next tick
+            do {
+                count = relayBatch();
+                published += count;
+            } while (count == batchSize);
+            future.complete(published);
+        }, false, result -> {
+            relaying.set(false);
+            if (result.failed()) {
+                LOGGER.warn("Not able to relay events from outbox", result.cause());
+            } else if (result.result() > 0) {
+                LOGGER.debug("Relayed '{}' events from outbox", result.result());
+            }
+        });
+    }
+
+    private int relayBatch() {
+        try {
+            Base.open(DataSourceRegistry.getInstance().getDefaultDataSource());
+            Base.openTransaction();
+            List<Map> rows = Base.findAll(SELECT_PENDING, batchSize);
+            if (rows.isEmpty()) {
+                Base.commitTransaction();
+                return 0;
+            }
+            List<Long> delivered = send(rows);
+            if (delivered.size() < rows.size()) {
+                LOGGER.warn("'{}' of '{}' events from outbox not acknowledged, will be sent again",
+                    rows.size() - delivered.size(), rows.size());
+            }
+            if (!delivered.isEmpty()) {
+                StringJoiner ids = new StringJoiner(",");
+                for (Long id : delivered) {
+                    ids.add(String.valueOf(id));
+                }
+                Base.exec(String.format(MARK_PUBLISHED, ids.toString()));
+            }
+            Base.commitTransaction();
+            return delivered.size();
+        } catch (Throwable e) {
+            Base.rollbackTransaction();
+            throw e;
+        } finally {
+            Base.close();
+        }
+    }
+
+    /*
+     * Send the events and wait for their replies, rows stay locked meanwhile.
+     * Replies which come after the wait are ignored, those events are taken
+     * as not delivered.
+     */
+    private List<Long> send(List<Map> rows) {
+        List<Long> delivered = Collections.synchronizedList(new ArrayList<>(rows.size()));
+        CountDownLatch replies = new CountDownLatch(rows.size());
+        for (Map row : rows) {
+            long id = ((Number) row.get("id")).longValue();
+            vertx.eventBus().send(MessagebusEndpoints.MBEP_EVENT, new JsonObject(String.valueOf(row.get("event"))),
+                deliveryOptions, reply -> {
+                    if (isDelivered(reply)) {
+                        delivered.add(id);
+                    }
+                    replies.countDown();
+                });
+        }
+        try {
+            replies.await(deliveryOptions.getSendTimeout() + ACK_WAIT_MARGIN_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (delivered) {
+            return new ArrayList<>(delivered);
+        }
+    }
+
+    private boolean isDelivered(AsyncResult<Message<Object>> reply) {
+        if (reply.succeeded()) {
+            return true;
+        }
+        // Without ack, only a timeout is taken as handed over to end point
+        return !ackRequired && reply.cause() instanceof ReplyException
+            && ((ReplyException) reply.cause()).failureType() == ReplyFailure.TIMEOUT;
+    }
+
+    private void purge() {
+        vertx.executeBlocking(future -> {
+            try {
+                Base.open(DataSourceRegistry.getInstance().getDefaultDataSource());
+                Base.openTransaction();
+                int purged = Base.exec(PURGE_PUBLISHED, retentionHours);
+                Base.commitTransaction();
+                LOGGER.info("Purged '{}' published events from outbox", purged);
+                future.complete();
+            } finally {
+                Base.close();
+            }
+        }, false, result -> {
+            if (result.failed()) {
+                LOGGER.warn("Not able to purge events from outbox", result.cause());
+            }
+        });
+    }
+
+    private static final class Holder {
+        private static final EventOutbox INSTANCE = new EventOutbox();
+    }
+}
@@ -0,0 +1,123 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Bounded in memory cache whose entries expire after a fixed time from being
+ * put. When full, least recently used entry is evicted. Removal listener, if
+ * provided, is called for every entry which leaves the cache for any reason,
+ * while holding lock of the cache.
+ * <p>
+ * All operations are synchronized, as the cache is shared by worker threads.
+ */
+public final class ExpiringCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final BiConsumer<K, V> removalListener;
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ExpiringCache(String name, int maxSize, long ttlMillis) {
+        this(name, maxSize, ttlMillis, null);
+    }
+
+    public ExpiringCache(String name, int maxSize, long ttlMillis, BiConsumer<K, V> removalListener) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalStateException("Invalid size '" + maxSize + "' or ttl '" + ttlMillis + "' for cache");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.removalListener = removalListener;
+        this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > ExpiringCache.this.maxSize) {
+                    evictions++;
+                    notifyRemoval(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return value for key, or null if not present or expired
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            notifyRemoval(key, entry);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        CacheEntry<V> previous = entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis));
+        if (previous != null) {
+            notifyRemoval(key, previous);
+        }
+    }
+
+    public synchronized V remove(K key) {
+        CacheEntry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        notifyRemoval(key, entry);
+        return entry.value;
+    }
+
+    public synchronized void clear() {
+        for (Iterator<Map.Entry<K, CacheEntry<V>>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<K, CacheEntry<V>> entry = it.next();
+            it.remove();
+            notifyRemoval(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized JsonObject getStats() {
+        return new JsonObject().put("name", name).put("size", entries.size()).put("max.size", maxSize)
+            .put("hits", hits).put("misses", misses).put("evictions", evictions);
+    }
+
+    private void notifyRemoval(K key, CacheEntry<V> entry) {
+        if (removalListener != null) {
+            removalListener.accept(key, entry.value);
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        CacheEntry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
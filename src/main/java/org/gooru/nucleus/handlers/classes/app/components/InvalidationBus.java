@@ -0,0 +1,252 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.gooru.nucleus.handlers.classes.constants.MessagebusEndpoints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Channel on clustered event bus which lets nodes keep their caches in line
+ * with writes committed on other nodes, enabled by "invalidation.bus" section
+ * of config. Committed writes are queued here and published in batches, at
+ * most once per flush interval, as class ids whose row changed, class ids
+ * whose members changed and user ids; codes of classes being created are
+ * published as well, so that class code index of other nodes has them.
+ * <p>
+ * Batches of a node carry a sequence number, and the last one is repeated as
+ * heartbeat when there is nothing to publish. Node which finds a gap in the
+ * sequence of a peer, e.g. after a network partition, has missed some
+ * invalidations, so it clears its caches rather than serving stale entries,
+ * and has class code index sync all the codes from DB.
+ */
+public final class InvalidationBus implements Initializer, Finalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationBus.class);
+    private static final String BUS_CONFIG_KEY = "invalidation.bus";
+    private static final String ENABLED = "enabled";
+    private static final String FLUSH_INTERVAL_MS = "flush.interval.ms";
+    private static final String HEARTBEAT_INTERVAL_MS = "heartbeat.interval.ms";
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 20L;
+    private static final long DEFAULT_HEARTBEAT_INTERVAL_MS = 5000L;
+    // Peers not heard of for these many heartbeats are taken to be gone
+    private static final int PEER_EXPIRY_HEARTBEATS = 10;
+    private static final String NODE = "node";
+    private static final String SEQUENCE = "seq";
+    private static final String CLASSES = "classes";
+    private static final String MEMBERS = "members";
+    private static final String USERS = "users";
+    private static final String CODES = "codes";
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<String> pendingClasses = new LinkedHashSet<>();
+    private final Set<String> pendingMembers = new LinkedHashSet<>();
+    private final Set<String> pendingUsers = new LinkedHashSet<>();
+    private final Set<String> pendingCodes = new LinkedHashSet<>();
+    private final Map<String, Peer> peers = new HashMap<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private Vertx vertx;
+    private MessageConsumer<JsonObject> consumer;
+    private long flushTimerId;
+    private long heartbeatTimerId;
+    private long heartbeatIntervalMs;
+    private long sequence = 0;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private InvalidationBus() {
+    }
+
+    public static InvalidationBus getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject busConfig = config.getJsonObject(BUS_CONFIG_KEY, new JsonObject());
+                    if (busConfig.getBoolean(ENABLED, false)) {
+                        this.vertx = vertx;
+                        long flushInterval = busConfig.getLong(FLUSH_INTERVAL_MS, DEFAULT_FLUSH_INTERVAL_MS);
+                        heartbeatIntervalMs = busConfig.getLong(HEARTBEAT_INTERVAL_MS, DEFAULT_HEARTBEAT_INTERVAL_MS);
+                        consumer = vertx.eventBus().consumer(MessagebusEndpoints.MBEP_CLASS_INVALIDATION,
+                            this::onMessage);
+                        flushTimerId = vertx.setPeriodic(flushInterval, id -> flush(false));
+                        heartbeatTimerId = vertx.setPeriodic(heartbeatIntervalMs, id -> heartbeat());
+                        enabled = true;
+                        LOGGER.info("Invalidation bus enabled for node '{}' with flush interval '{}' ms", nodeId,
+                            flushInterval);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue the invalidations of a committed write for other nodes
+     *
+     * @param classId Class which was written, may be null
+     * @param classChanged Whether the class row itself was changed, as against
+     *        only its members
+     * @param userIds Users who may have been associated with the class
+     */
+    public synchronized void publish(String classId, boolean classChanged, Collection<String> userIds) {
+        if (!enabled) {
+            return;
+        }
+        if (classId != null) {
+            (classChanged ? pendingClasses : pendingMembers).add(classId);
+        }
+        pendingUsers.addAll(userIds);
+    }
+
+    /**
+     * Queue the code of class being created for other nodes
+     */
+    public synchronized void publishCodeIssued(String code) {
+        if (enabled) {
+            pendingCodes.add(code);
+        }
+    }
+
+    public synchronized JsonObject getStats() {
+        if (!enabled) {
+            return new JsonObject();
+        }
+        return new JsonObject().put(NODE, nodeId).put(SEQUENCE, sequence).put("peers", peers.size())
+            .put("published", published.get()).put("received", received.get()).put("flushes", flushes.get());
+    }
+
+    @Override
+    public void finalizeComponent() {
+        if (enabled) {
+            flush(false);
+            vertx.cancelTimer(flushTimerId);
+            vertx.cancelTimer(heartbeatTimerId);
+            consumer.unregister();
+        }
+    }
+
+    private void heartbeat() {
+        flush(true);
+        long expiry = System.currentTimeMillis() - heartbeatIntervalMs * PEER_EXPIRY_HEARTBEATS;
+        synchronized (this) {
+            peers.values().removeIf(peer -> peer.lastHeardMillis < expiry);
+        }
+    }
+
+    /*
+     * Publish the pending invalidations as next batch; if there are none,
+     * repeat the sequence of last batch when it is time for heartbeat.
+     * Publish does not block, and is done with lock held so that batches go
+     * out in order of their sequence.
+     */
+    private synchronized void flush(boolean heartbeat) {
+        boolean pending = !pendingClasses.isEmpty() || !pendingMembers.isEmpty() || !pendingUsers.isEmpty()
+            || !pendingCodes.isEmpty();
+        if (!pending && !heartbeat) {
+            return;
+        }
+        JsonObject batch = new JsonObject().put(NODE, nodeId);
+        if (pending) {
+            batch.put(SEQUENCE, ++sequence).put(CLASSES, drain(pendingClasses)).put(MEMBERS, drain(pendingMembers))
+                .put(USERS, drain(pendingUsers)).put(CODES, drain(pendingCodes));
+            published.incrementAndGet();
+        } else {
+            batch.put(SEQUENCE, sequence);
+        }
+        vertx.eventBus().publish(MessagebusEndpoints.MBEP_CLASS_INVALIDATION, batch);
+    }
+
+    private static JsonArray drain(Set<String> pending) {
+        JsonArray values = new JsonArray();
+        for (Iterator<String> it = pending.iterator(); it.hasNext();) {
+            values.add(it.next());
+            it.remove();
+        }
+        return values;
+    }
+
+    private void onMessage(Message<JsonObject> message) {
+        JsonObject batch = message.body();
+        String peerId = batch.getString(NODE);
+        if (nodeId.equals(peerId)) {
+            return;
+        }
+        long peerSequence = batch.getLong(SEQUENCE, 0L);
+        boolean missed;
+        synchronized (this) {
+            Peer peer = peers.computeIfAbsent(peerId, id -> new Peer());
+            // Peer heard of for the first time may have published before
+            missed = peerSequence > peer.sequence + (batch.containsKey(CLASSES) ? 1 : 0);
+            peer.sequence = Math.max(peer.sequence, peerSequence);
+            peer.lastHeardMillis = System.currentTimeMillis();
+        }
+        if (missed) {
+            LOGGER.warn("Missed invalidations from node '{}' till sequence '{}', clearing caches", peerId,
+                peerSequence);
+            flushes.incrementAndGet();
+            clearCaches();
+            ClassCodeIndex.getInstance().resync();
+        }
+        if (batch.containsKey(CLASSES)) {
+            received.incrementAndGet();
+            apply(batch);
+        }
+    }
+
+    private static void apply(JsonObject batch) {
+        Set<String> userIds = new LinkedHashSet<>();
+        batch.getJsonArray(USERS).forEach(userId -> userIds.add(String.valueOf(userId)));
+        batch.getJsonArray(CLASSES).forEach(value -> {
+            String classId = String.valueOf(value);
+            ClassCache.getInstance().invalidate(classId);
+            VisibleContentIndex.getInstance().invalidate(classId);
+            invalidateMembers(classId);
+        });
+        batch.getJsonArray(MEMBERS).forEach(value -> invalidateMembers(String.valueOf(value)));
+        ClassesForUserCache.getInstance().invalidate(null, userIds);
+        batch.getJsonArray(CODES).forEach(code -> ClassCodeIndex.getInstance().codeIssued(String.valueOf(code)));
+    }
+
+    private static void invalidateMembers(String classId) {
+        ClassesForUserCache.getInstance().invalidate(classId, Collections.<String>emptySet());
+        AuthorizationCache.getInstance().invalidate(classId);
+    }
+
+    private static void clearCaches() {
+        ClassCache.getInstance().clear();
+        ClassesForUserCache.getInstance().clear();
+        AuthorizationCache.getInstance().clear();
+        VisibleContentIndex.getInstance().clear();
+    }
+
+    private static final class Peer {
+        private long sequence = 0;
+        private long lastHeardMillis;
+    }
+
+    private static final class Holder {
+        private static final InvalidationBus INSTANCE = new InvalidationBus();
+    }
+}
@@ -0,0 +1,192 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.javalite.activejdbc.Base;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Counts of joined members of classes, enabled by "member.counts" section of
+ * config. When enabled, handlers which join or remove students adjust the
+ * count in the same transaction which wrote the membership, so that counts can
+ * be read by class id instead of aggregating memberships.
+ * <p>
+ * Row of a class which does not have one yet is created from the actual count,
+ * read in the same transaction after the write; if two transactions race to
+ * create it, the one which loses adds its delta instead. A reconciler, run by
+ * one node at a time, periodically recounts the memberships and fixes the rows
+ * which have drifted, skipping rows adjusted within the last minute as the
+ * recount may not have seen those adjustments. Only the rows which are fixed
+ * get locked, so joins are not held up by reconciliation.
+ * <p>
+ * Expected table:
+ *
+ * <pre>
+ * CREATE TABLE class_member_count (
+ *     class_id uuid PRIMARY KEY,
+ *     member_count integer NOT NULL,
+ *     updated_at timestamp NOT NULL DEFAULT now()
+ * );
+ * </pre>
+ */
+public final class MemberCountStore implements Initializer, Finalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemberCountStore.class);
+    private static final String MEMBER_COUNTS_CONFIG_KEY = "member.counts";
+    private static final String ENABLED = "enabled";
+    private static final String RECONCILE_INTERVAL_MS = "reconcile.interval.ms";
+    private static final long DEFAULT_RECONCILE_INTERVAL_MS = 3600000L;
+    // Key of advisory lock which lets one node reconcile at a time
+    private static final long RECONCILE_LOCK_KEY = 0x636C6173736D656DL;
+    private static final String CLASS_ID = "class_id";
+    private static final String MEMBER_COUNT = "member_count";
+    private static final String ADJUST_COUNT =
+        "UPDATE class_member_count SET member_count = member_count + ?, updated_at = now() WHERE class_id = ?::uuid";
+    private static final String CREATE_COUNT =
+        "INSERT INTO class_member_count(class_id, member_count) SELECT ?::uuid, count(*) FROM class_member WHERE "
+            + "class_id = ?::uuid AND class_member_status = 'joined'::class_member_status_type ON CONFLICT "
+            + "(class_id) DO UPDATE SET member_count = class_member_count.member_count + ?, updated_at = now()";
+    private static final String DELETE_COUNT = "DELETE FROM class_member_count WHERE class_id = ?::uuid";
+    private static final String FETCH_COUNTS =
+        "SELECT class_id, member_count FROM class_member_count WHERE class_id = ANY(?::uuid[])";
+    private static final String TRY_RECONCILE_LOCK = "SELECT pg_try_advisory_xact_lock(?)";
+    private static final String ACTUAL_COUNTS =
+        "SELECT c.id, count(cm.class_id) AS member_count FROM class c LEFT JOIN class_member cm ON cm.class_id = "
+            + "c.id AND cm.class_member_status = 'joined'::class_member_status_type WHERE c.is_deleted = false "
+            + "GROUP BY c.id";
+    private static final String CREATE_MISSING_COUNTS = "INSERT INTO class_member_count(class_id, member_count) "
+        + ACTUAL_COUNTS + " HAVING NOT EXISTS (SELECT 1 FROM class_member_count mc WHERE mc.class_id = c.id) "
+        + "ON CONFLICT (class_id) DO NOTHING";
+    private static final String FIX_DRIFTED_COUNTS = "WITH actual AS (" + ACTUAL_COUNTS + ") UPDATE "
+        + "class_member_count mc SET member_count = actual.member_count, updated_at = now() FROM actual WHERE "
+        + "mc.class_id = actual.id AND mc.member_count <> actual.member_count AND mc.updated_at < now() - "
+        + "interval '1 minute'";
+    private final AtomicBoolean reconciling = new AtomicBoolean(false);
+    private Vertx vertx;
+    private long reconcileTimerId;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private MemberCountStore() {
+    }
+
+    public static MemberCountStore getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject countsConfig = config.getJsonObject(MEMBER_COUNTS_CONFIG_KEY, new JsonObject());
+                    if (countsConfig.getBoolean(ENABLED, false)) {
+                        this.vertx = vertx;
+                        long interval = countsConfig.getLong(RECONCILE_INTERVAL_MS, DEFAULT_RECONCILE_INTERVAL_MS);
+                        reconcileTimerId = vertx.setPeriodic(interval, id -> reconcile());
+                        enabled = true;
+                        LOGGER.info("Member counts enabled with reconcile interval '{}' ms", interval);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adjust the count of joined members of class. This needs to be called
+     * with the DB connection of the transaction which wrote the memberships,
+     * after the write.
+     *
+     * @param classId Class whose members were written
+     * @param delta Number of members joined, negative for members removed
+     */
+    public void adjust(String classId, int delta) {
+        if (!enabled || delta == 0) {
+            return;
+        }
+        if (Base.exec(ADJUST_COUNT, delta, classId) == 0) {
+            Base.exec(CREATE_COUNT, classId, classId, delta);
+        }
+    }
+
+    /**
+     * Drop the count of class which is deleted, with the DB connection of the
+     * transaction which deleted it
+     */
+    public void remove(String classId) {
+        if (enabled) {
+            Base.exec(DELETE_COUNT, classId);
+        }
+    }
+
+    /**
+     * Fetch the counts of classes, using DB connection of the current thread.
+     * Classes which do not have a row yet are left out.
+     *
+     * @param classIds Postgres array representation of class ids
+     * @return count of joined members by class id
+     */
+    public Map<String, Number> fetchCounts(String classIds) {
+        List<Map> rows = Base.findAll(FETCH_COUNTS, classIds);
+        Map<String, Number> counts = new HashMap<>(rows.size());
+        rows.forEach(row -> counts.put(String.valueOf(row.get(CLASS_ID)), (Number) row.get(MEMBER_COUNT)));
+        return counts;
+    }
+
+    @Override
+    public void finalizeComponent() {
+        if (enabled) {
+            vertx.cancelTimer(reconcileTimerId);
+        }
+    }
+
+    private void reconcile() {
+        // Skip the tick if previous run is still going on
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        vertx.<Integer>executeBlocking(future -> {
+            try {
+                Base.open(DataSourceRegistry.getInstance().getDefaultDataSource());
+                Base.openTransaction();
+                Object locked = Base.firstCell(TRY_RECONCILE_LOCK, RECONCILE_LOCK_KEY);
+                int fixed = 0;
+                if (Boolean.TRUE.equals(locked)) {
+                    fixed = Base.exec(CREATE_MISSING_COUNTS) + Base.exec(FIX_DRIFTED_COUNTS);
+                }
+                Base.commitTransaction();
+                future.complete(fixed);
+            } catch (Throwable e) {
+                Base.rollbackTransaction();
+                throw e;
+            } finally {
+                Base.close();
+            }
+        }, false, result -> {
+            reconciling.set(false);
+            if (result.failed()) {
+                LOGGER.warn("Not able to reconcile member counts", result.cause());
+            } else if (result.result() > 0) {
+                LOGGER.info("Reconciled member counts of '{}' classes", result.result());
+            }
+        });
+    }
+
+    private static final class Holder {
+        private static final MemberCountStore INSTANCE = new MemberCountStore();
+    }
+}
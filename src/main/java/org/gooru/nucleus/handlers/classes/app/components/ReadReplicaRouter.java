@@ -0,0 +1,267 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Routes reads to the read replicas known to {@link DataSourceRegistry}, in
+ * round robin. Replicas are checked periodically, and a replica is skipped
+ * while it cannot be reached or lags behind primary by more than the allowed
+ * seconds. When no replica is usable, callers should fall back to primary.
+ * <p>
+ * Lag is measured against current WAL location of primary, as the time the
+ * replica takes to replay up to it; replica which is caught up with what it
+ * has received, but is not receiving any more, would otherwise look as if it
+ * had no lag. Location is sampled for each replica just before it is checked,
+ * so that time spent on checking other replicas does not count as its lag.
+ * Replica is taken to be lagging when location of primary could not be read.
+ * <p>
+ * Whether the request being run by current thread reads from a replica is
+ * tracked, so that results which may be stale are not put in caches which
+ * are meant to be read your writes.
+ * <p>
+ * Settings are read from "replica.routing" section of config.
+ */
+public final class ReadReplicaRouter implements Initializer, Finalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadReplicaRouter.class);
+    private static final String REPLICA_ROUTING_CONFIG_KEY = "replica.routing";
+    private static final String MAX_LAG_SECONDS = "max.lag.seconds";
+    private static final String CHECK_INTERVAL_SECONDS = "check.interval.seconds";
+    private static final double DEFAULT_MAX_LAG_SECONDS = 5.0;
+    private static final long DEFAULT_CHECK_INTERVAL_SECONDS = 5L;
+    private static final long REPLAY_POLL_MILLIS = 50L;
+    private static final String PRIMARY_LOCATION_QUERY = "SELECT pg_current_xlog_location()::text";
+    private static final String REPLAYED_QUERY = "SELECT NOT pg_is_in_recovery() "
+        + "OR pg_xlog_location_diff(pg_last_xlog_replay_location(), ?::pg_lsn) >= 0";
+    private static final ThreadLocal<Boolean> READING_REPLICA = new ThreadLocal<>();
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicBoolean checking = new AtomicBoolean(false);
+    private Vertx vertx;
+    private double maxLagSeconds;
+    private long timerId;
+    private volatile boolean initialized = false;
+
+    private ReadReplicaRouter() {
+    }
+
+    public static ReadReplicaRouter getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    Map<String, DataSource> replicaDataSources = DataSourceRegistry.getInstance().getReadReplicas();
+                    if (!replicaDataSources.isEmpty()) {
+                        JsonObject routingConfig = config.getJsonObject(REPLICA_ROUTING_CONFIG_KEY, new JsonObject());
+                        this.vertx = vertx;
+                        maxLagSeconds = routingConfig.getDouble(MAX_LAG_SECONDS, DEFAULT_MAX_LAG_SECONDS);
+                        long interval = routingConfig.getLong(CHECK_INTERVAL_SECONDS, DEFAULT_CHECK_INTERVAL_SECONDS);
+                        replicaDataSources.forEach((name, ds) -> replicas.add(new Replica(name, ds)));
+                        // We are on worker during startup, so check right away
+                        checkReplicas();
+                        timerId = vertx.setPeriodic(interval * 1000, id -> scheduleCheck());
+                        LOGGER.info("Routing reads to replicas: '{}'", getStats());
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pick a usable replica for a read
+     *
+     * @return data source of the replica, or null if reads should go to
+     *         primary
+     */
+    public DataSource selectReplica() {
+        int count = replicas.size();
+        if (count == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (replica.healthy) {
+                return replica.dataSource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Take the replica out of rotation till next successful check, e.g. when
+     * connection could not be obtained from it
+     *
+     * @param dataSource Data source which failed, ignored if not a replica
+     */
+    public void markUnhealthy(DataSource dataSource) {
+        for (Replica replica : replicas) {
+            if (replica.dataSource == dataSource && replica.healthy) {
+                replica.healthy = false;
+                LOGGER.warn("Replica '{}' taken out of rotation", replica.name);
+            }
+        }
+    }
+
+    /**
+     * Track the data source current thread is reading from, till
+     * {@link #clearReading()}
+     */
+    public void setReading(DataSource dataSource) {
+        boolean replica = false;
+        for (Replica candidate : replicas) {
+            replica |= candidate.dataSource == dataSource;
+        }
+        READING_REPLICA.set(replica);
+    }
+
+    public void clearReading() {
+        READING_REPLICA.remove();
+    }
+
+    /**
+     * @return true if current thread reads from a replica, which may lag
+     *         behind primary
+     */
+    public boolean isReadingReplica() {
+        return Boolean.TRUE.equals(READING_REPLICA.get());
+    }
+
+    public JsonArray getStats() {
+        JsonArray stats = new JsonArray();
+        replicas.forEach(replica -> stats.add(new JsonObject().put("name", replica.name)
+            .put("healthy", replica.healthy).put("lag.seconds", replica.lagSeconds)));
+        return stats;
+    }
+
+    @Override
+    public void finalizeComponent() {
+        if (vertx != null) {
+            vertx.cancelTimer(timerId);
+        }
+    }
+
+    private void scheduleCheck() {
+        // Skip the tick if previous check is still waiting on lagging replicas
+        if (!checking.compareAndSet(false, true)) {
+            return;
+        }
+        vertx.executeBlocking(future -> {
+            checkReplicas();
+            future.complete();
+        }, false, result -> {
+            checking.set(false);
+            if (result.failed()) {
+                LOGGER.warn("Not able to check replicas", result.cause());
+            }
+        });
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            long sampledAt = System.nanoTime();
+            String primaryLocation = readPrimaryLocation();
+            boolean healthy;
+            if (primaryLocation == null) {
+                replica.lagSeconds = -1;
+                healthy = false;
+            } else {
+                try {
+                    replica.lagSeconds = measureLag(replica, primaryLocation, sampledAt);
+                    healthy = replica.lagSeconds <= maxLagSeconds;
+                } catch (SQLException e) {
+                    LOGGER.warn("Not able to check replica '{}'", replica.name, e);
+                    healthy = false;
+                }
+            }
+            if (healthy != replica.healthy) {
+                LOGGER.info("Replica '{}' is now {} with lag '{}' seconds", replica.name,
+                    healthy ? "in rotation" : "out of rotation", replica.lagSeconds);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    private static String readPrimaryLocation() {
+        try (Connection connection = DataSourceRegistry.getInstance().getDefaultDataSource().getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery(PRIMARY_LOCATION_QUERY)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        } catch (SQLException e) {
+            LOGGER.warn("Not able to read WAL location of primary, replicas taken to be lagging", e);
+            return null;
+        }
+    }
+
+    /*
+     * Seconds since the location was sampled on primary till the replica has
+     * replayed it, waiting no longer than the allowed lag
+     */
+    private double measureLag(Replica replica, String primaryLocation, long sampledAt) throws SQLException {
+        long maxWaitNanos = (long) (maxLagSeconds * 1_000_000_000L);
+        try (Connection connection = replica.dataSource.getConnection();
+            PreparedStatement statement = connection.prepareStatement(REPLAYED_QUERY)) {
+            statement.setString(1, primaryLocation);
+            while (true) {
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    if (resultSet.getBoolean(1)) {
+                        return (System.nanoTime() - sampledAt) / 1_000_000_000.0;
+                    }
+                }
+                long waited = System.nanoTime() - sampledAt;
+                if (waited > maxWaitNanos) {
+                    return waited / 1_000_000_000.0;
+                }
+                try {
+                    Thread.sleep(REPLAY_POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Double.MAX_VALUE;
+                }
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = false;
+        private volatile double lagSeconds = -1;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private static final class Holder {
+        private static final ReadReplicaRouter INSTANCE = new ReadReplicaRouter();
+    }
+}
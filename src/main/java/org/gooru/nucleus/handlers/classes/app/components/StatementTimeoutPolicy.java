@@ -0,0 +1,111 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Statement timeouts per operation, read from "statement.timeouts" section of
+ * config. Operation listed in "ops" gets its own timeout, others get the
+ * default; zero means no timeout other than the one derived from deadline.
+ * <p>
+ * Timeout is applied with SET LOCAL inside the transaction, so that DB cancels
+ * the statement which runs past it, and the connection goes back to pool once
+ * the transaction is rolled back. Cancellations are counted per operation.
+ */
+public final class StatementTimeoutPolicy implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementTimeoutPolicy.class);
+    private static final String STATEMENT_TIMEOUTS_CONFIG_KEY = "statement.timeouts";
+    private static final String DEFAULT_MS = "default.ms";
+    private static final String OPS = "ops";
+    private static final long NO_TIMEOUT = 0L;
+    // query_canceled, which is what DB reports for statement timeout
+    private static final String QUERY_CANCELED_SQL_STATE = "57014";
+    private final Map<String, AtomicLong> cancellations = new ConcurrentHashMap<>();
+    private Map<String, Long> timeoutsByOp = Collections.emptyMap();
+    private long defaultTimeoutMs = NO_TIMEOUT;
+    private volatile boolean initialized = false;
+
+    private StatementTimeoutPolicy() {
+    }
+
+    public static StatementTimeoutPolicy getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject timeoutConfig = config.getJsonObject(STATEMENT_TIMEOUTS_CONFIG_KEY, new JsonObject());
+                    defaultTimeoutMs = Math.max(timeoutConfig.getLong(DEFAULT_MS, NO_TIMEOUT), NO_TIMEOUT);
+                    Map<String, Long> timeouts = new HashMap<>();
+                    JsonObject ops = timeoutConfig.getJsonObject(OPS, new JsonObject());
+                    for (String op : ops.fieldNames()) {
+                        timeouts.put(op, Math.max(ops.getLong(op), NO_TIMEOUT));
+                    }
+                    timeoutsByOp = Collections.unmodifiableMap(timeouts);
+                    LOGGER.info("Statement timeout is '{}' ms by default, and '{}' for specific ops", defaultTimeoutMs,
+                        timeoutsByOp);
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Statement timeout for the operation
+     *
+     * @param op Operation being processed, may be null
+     * @return timeout in millis, or zero if there is none
+     */
+    public long timeoutMillis(String op) {
+        if (op == null) {
+            return defaultTimeoutMs;
+        }
+        Long timeout = timeoutsByOp.get(op);
+        return timeout != null ? timeout : defaultTimeoutMs;
+    }
+
+    /**
+     * Find out if the failure is cancellation of statement by DB
+     *
+     * @param failure Exception thrown while running statements
+     * @return true if statement was cancelled
+     */
+    public static boolean isStatementCancelled(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException
+                && QUERY_CANCELED_SQL_STATE.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void recordCancelled(String op) {
+        cancellations.computeIfAbsent(op != null ? op : "unknown", k -> new AtomicLong()).incrementAndGet();
+    }
+
+    public JsonObject getStats() {
+        JsonObject cancelledByOp = new JsonObject();
+        cancellations.forEach((op, count) -> cancelledByOp.put(op, count.get()));
+        return new JsonObject().put("default.ms", defaultTimeoutMs).put("cancelled", cancelledByOp);
+    }
+
+    private static final class Holder {
+        private static final StatementTimeoutPolicy INSTANCE = new StatementTimeoutPolicy();
+    }
+}
@@ -0,0 +1,124 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Policy for retrying transactions which failed because of conflict with
+ * other transactions, i.e. serialization failure, deadlock or lock not
+ * available. Retries are bounded and spaced with exponential backoff with full
+ * jitter, so that conflicting transactions do not collide again.
+ * <p>
+ * Settings are read from "transaction.retry" section of config. Retries are
+ * counted per SQL state, along with retries which succeeded and the ones which
+ * ran out of attempts.
+ */
+public final class TransactionRetryPolicy implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionRetryPolicy.class);
+    private static final String RETRY_CONFIG_KEY = "transaction.retry";
+    private static final String MAX_RETRIES = "max.retries";
+    private static final String BASE_DELAY_MS = "base.delay.ms";
+    private static final String MAX_DELAY_MS = "max.delay.ms";
+    private static final int DEFAULT_MAX_RETRIES = 0;
+    private static final long DEFAULT_BASE_DELAY_MS = 10L;
+    private static final long DEFAULT_MAX_DELAY_MS = 200L;
+    // serialization_failure, deadlock_detected, lock_not_available
+    private static final Set<String> RETRYABLE_SQL_STATES =
+        Collections.unmodifiableSet(new HashSet<>(Arrays.asList("40001", "40P01", "55P03")));
+    private final Map<String, AtomicLong> retries = new ConcurrentHashMap<>();
+    private final AtomicLong retriesSucceeded = new AtomicLong();
+    private final AtomicLong retriesExhausted = new AtomicLong();
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private long baseDelayMs = DEFAULT_BASE_DELAY_MS;
+    private long maxDelayMs = DEFAULT_MAX_DELAY_MS;
+    private volatile boolean initialized = false;
+
+    private TransactionRetryPolicy() {
+    }
+
+    public static TransactionRetryPolicy getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject retryConfig = config.getJsonObject(RETRY_CONFIG_KEY, new JsonObject());
+                    maxRetries = retryConfig.getInteger(MAX_RETRIES, DEFAULT_MAX_RETRIES);
+                    baseDelayMs = retryConfig.getLong(BASE_DELAY_MS, DEFAULT_BASE_DELAY_MS);
+                    maxDelayMs = retryConfig.getLong(MAX_DELAY_MS, DEFAULT_MAX_DELAY_MS);
+                    LOGGER.info("Transactions will be retried up to '{}' times with base delay '{}' ms", maxRetries,
+                        baseDelayMs);
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the SQL state which makes the failure worth a retry
+     *
+     * @param failure Exception thrown while running transaction
+     * @return the SQL state, or null if failure is not retryable
+     */
+    public static String retryableSqlState(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+                if (sqlState != null && RETRYABLE_SQL_STATES.contains(sqlState)) {
+                    return sqlState;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decide whether failed attempt should be retried, and count the decision
+     */
+    public boolean shouldRetry(int attempt, String sqlState) {
+        if (attempt > maxRetries) {
+            retriesExhausted.incrementAndGet();
+            return false;
+        }
+        retries.computeIfAbsent(sqlState, k -> new AtomicLong()).incrementAndGet();
+        return true;
+    }
+
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public void recordRetrySucceeded() {
+        retriesSucceeded.incrementAndGet();
+    }
+
+    public JsonObject getStats() {
+        JsonObject retriesBySqlState = new JsonObject();
+        retries.forEach((sqlState, count) -> retriesBySqlState.put(sqlState, count.get()));
+        return new JsonObject().put("retries", retriesBySqlState).put("succeeded", retriesSucceeded.get())
+            .put("exhausted", retriesExhausted.get());
+    }
+
+    private static final class Holder {
+        private static final TransactionRetryPolicy INSTANCE = new TransactionRetryPolicy();
+    }
+}
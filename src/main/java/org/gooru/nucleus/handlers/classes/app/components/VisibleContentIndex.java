@@ -0,0 +1,166 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.Collection;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Index of content visible in classes, keyed by class, along with catalogs of
+ * the courses, keyed by course, which are shared by classes of same course.
+ * Content marked visible in a class is applied to its entry in place once the
+ * write is committed; if the content is not in catalog of the entry, entry is
+ * dropped to be built again.
+ * <p>
+ * Collections are written by content service as well, so content created,
+ * moved or deleted there shows up once the entries expire. Entry built while
+ * visibility of some class was changed is not kept, as it may have been read
+ * before the change was committed. Settings are read from
+ * "visible.content.index" section of config; index is disabled if the section
+ * is absent.
+ */
+public final class VisibleContentIndex implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VisibleContentIndex.class);
+    private static final String INDEX_CONFIG_KEY = "visible.content.index";
+    private static final String ENABLED = "enabled";
+    private static final String MAX_COURSES = "max.courses";
+    private static final String MAX_CLASSES = "max.classes";
+    private static final String TTL_SECONDS = "ttl.seconds";
+    private static final int DEFAULT_MAX_COURSES = 2000;
+    private static final int DEFAULT_MAX_CLASSES = 20000;
+    private static final long DEFAULT_TTL_SECONDS = 300L;
+    private ExpiringCache<String, CourseContentCatalog> catalogs;
+    private ExpiringCache<String, ClassVisibleContent> classes;
+    private long version = 0;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private VisibleContentIndex() {
+    }
+
+    public static VisibleContentIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject indexConfig = config.getJsonObject(INDEX_CONFIG_KEY, new JsonObject());
+                    if (indexConfig.getBoolean(ENABLED, false)) {
+                        long ttl = indexConfig.getLong(TTL_SECONDS, DEFAULT_TTL_SECONDS);
+                        catalogs = new ExpiringCache<>(INDEX_CONFIG_KEY + ".courses",
+                            indexConfig.getInteger(MAX_COURSES, DEFAULT_MAX_COURSES), ttl * 1000);
+                        classes = new ExpiringCache<>(INDEX_CONFIG_KEY + ".classes",
+                            indexConfig.getInteger(MAX_CLASSES, DEFAULT_MAX_CLASSES), ttl * 1000);
+                        enabled = true;
+                        LOGGER.info("Visible content index enabled with ttl '{}' seconds", ttl);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Version to be passed to {@link #put} for entry built after this call
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * @return visible content of class for the course, or null
+     */
+    public synchronized ClassVisibleContent get(String classId, String courseId) {
+        if (!enabled) {
+            return null;
+        }
+        ClassVisibleContent content = classes.get(classId);
+        // Class may have been assigned another course since
+        return content != null && content.courseId().equals(courseId) ? content : null;
+    }
+
+    public synchronized void put(String classId, long builtAtVersion, ClassVisibleContent content) {
+        if (enabled && builtAtVersion == version) {
+            classes.put(classId, content);
+        }
+    }
+
+    /**
+     * @return catalog of course, or null
+     */
+    public synchronized CourseContentCatalog getCatalog(String courseId) {
+        return enabled ? catalogs.get(courseId) : null;
+    }
+
+    public synchronized void putCatalog(CourseContentCatalog catalog) {
+        if (enabled) {
+            catalogs.put(catalog.courseId(), catalog);
+        }
+    }
+
+    /**
+     * Apply the content which is marked visible in class, after the write is
+     * committed
+     */
+    public synchronized void markVisible(String classId, Collection<String> contentIds) {
+        if (!enabled || classId == null) {
+            return;
+        }
+        version++;
+        ClassVisibleContent content = classes.get(classId);
+        if (content == null) {
+            return;
+        }
+        ClassVisibleContent updated = content.withVisible(contentIds);
+        if (updated != null) {
+            classes.put(classId, updated);
+        } else {
+            classes.remove(classId);
+        }
+    }
+
+    /**
+     * Drop entry of class whose visibility was changed elsewhere
+     */
+    public synchronized void invalidate(String classId) {
+        if (!enabled || classId == null) {
+            return;
+        }
+        version++;
+        classes.remove(classId);
+    }
+
+    /**
+     * Drop all entries, when invalidations may have been missed
+     */
+    public synchronized void clear() {
+        if (enabled) {
+            version++;
+            classes.clear();
+            catalogs.clear();
+        }
+    }
+
+    public synchronized JsonObject getStats() {
+        if (!enabled) {
+            return new JsonObject();
+        }
+        return new JsonObject().put("courses", catalogs.getStats()).put("classes", classes.getStats());
+    }
+
+    private static final class Holder {
+        private static final VisibleContentIndex INSTANCE = new VisibleContentIndex();
+    }
+}
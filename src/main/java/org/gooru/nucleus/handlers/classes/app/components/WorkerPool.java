@@ -0,0 +1,207 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A named pool of worker threads with a bounded queue. Work submitted here is
+ * run on one of the pool threads and the result is handed back on the Vert.x
+ * context which submitted the work, same as executeBlocking would do.
+ * <p>
+ * A pool can also be backed by virtual threads, if the JVM supports them. In
+ * that case every piece of work gets its own thread, there is no queue and
+ * size only caps the work running at a time. Since the work runs start to end
+ * on the same thread, thread bound state like ActiveJDBC connection opened by
+ * Base works same as with platform threads. If virtual threads are not
+ * available, pool falls back to platform threads.
+ * <p>
+ * Virtual thread which blocks inside a monitor pins its carrier thread. The
+ * bundled Postgres driver runs each query inside a synchronized method and
+ * Hikari blocks inside monitors as well, so with them every DB call pins a
+ * carrier, and a virtual pool runs no more DB work at a time than there are
+ * cores. Hence virtual type is used only when the pool config also declares
+ * "pinning.free.drivers", i.e. drivers which block on locks rather than
+ * monitors; otherwise pool falls back to platform threads.
+ * <p>
+ * The pool tracks the time spent by the work in queue, which along with the
+ * queue depth is made available as stats.
+ */
+public final class WorkerPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerPool.class);
+    private static final String NAME = "name";
+    private static final String TYPE = "type";
+    private static final String SIZE = "size";
+    private static final String QUEUE_LIMIT = "queue.limit";
+    private static final String QUEUE_DEPTH = "queue.depth";
+    private static final String ACTIVE = "active";
+    private static final String COMPLETED = "completed";
+    private static final String REJECTED = "rejected";
+    private static final String WAIT_AVG_MS = "wait.avg.ms";
+    private static final String WAIT_MAX_MS = "wait.max.ms";
+    static final String TYPE_PLATFORM = "platform";
+    static final String TYPE_VIRTUAL = "virtual";
+
+    private final String name;
+    private final String type;
+    private final int size;
+    private final int queueLimit;
+    private final ExecutorService executor;
+    // Caps the work running at a time on virtual threads, null otherwise
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong waitTotalNanos = new AtomicLong();
+    private final AtomicLong waitMaxNanos = new AtomicLong();
+
+    WorkerPool(String name, String type, int size, int queueLimit, boolean pinningFreeDrivers) {
+        this.name = name;
+        this.size = size;
+        boolean virtual = TYPE_VIRTUAL.equals(type);
+        if (virtual && !pinningFreeDrivers) {
+            LOGGER.warn("DB drivers pin carrier threads of virtual threads, pool '{}' will use platform threads",
+                name);
+            virtual = false;
+        }
+        ExecutorService virtualExecutor = virtual ? createVirtualThreadExecutor(name) : null;
+        if (virtualExecutor != null) {
+            this.type = TYPE_VIRTUAL;
+            this.queueLimit = 0;
+            this.executor = virtualExecutor;
+            this.permits = new Semaphore(size);
+        } else {
+            this.type = TYPE_PLATFORM;
+            this.queueLimit = queueLimit;
+            this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueLimit), new NamedThreadFactory(name));
+            this.permits = null;
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Run the work on this pool and call the result handler on specified
+     * context once done.
+     *
+     * @return false if the pool is full and work was not accepted
+     */
+    public <T> boolean execute(Context context, Supplier<T> work, Handler<AsyncResult<T>> resultHandler) {
+        // Virtual threads do not queue, so cap the accepted work to size
+        if (permits != null && !permits.tryAcquire()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        queued.incrementAndGet();
+        final long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                recordWait(System.nanoTime() - queuedAt);
+                Future<T> result;
+                try {
+                    result = Future.succeededFuture(work.get());
+                } catch (Throwable t) {
+                    result = Future.failedFuture(t);
+                } finally {
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                    if (permits != null) {
+                        permits.release();
+                    }
+                }
+                final Future<T> outcome = result;
+                context.runOnContext(v -> resultHandler.handle(outcome));
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+            return false;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public JsonObject getStats() {
+        long count = waitCount.get();
+        long avgNanos = count == 0 ? 0 : waitTotalNanos.get() / count;
+        return new JsonObject().put(NAME, name).put(TYPE, type).put(SIZE, size).put(QUEUE_LIMIT, queueLimit)
+            .put(QUEUE_DEPTH, getQueueDepth()).put(ACTIVE, active.get()).put(COMPLETED, completed.get())
+            .put(REJECTED, rejected.get()).put(WAIT_AVG_MS, TimeUnit.NANOSECONDS.toMillis(avgNanos))
+            .put(WAIT_MAX_MS, TimeUnit.NANOSECONDS.toMillis(waitMaxNanos.get()));
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void recordWait(long waitNanos) {
+        waitCount.incrementAndGet();
+        waitTotalNanos.addAndGet(waitNanos);
+        long currentMax;
+        do {
+            currentMax = waitMaxNanos.get();
+        } while (waitNanos > currentMax && !waitMaxNanos.compareAndSet(currentMax, waitNanos));
+    }
+
+    /*
+     * We build for Java 8, so virtual thread executor is looked up
+     * reflectively. Returns null if the running JVM does not have it.
+     */
+    private static ExecutorService createVirtualThreadExecutor(String poolName) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Virtual threads not supported by JVM, pool '{}' will use platform threads", poolName);
+            return null;
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String poolName) {
+            this.prefix = "nucleus-class-" + poolName + '-';
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
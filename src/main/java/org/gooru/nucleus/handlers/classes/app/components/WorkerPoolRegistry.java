@@ -0,0 +1,129 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Registry of the named worker pools which act as bulkheads between different
+ * kind of operations. A pool may be of "platform" (default) or "virtual" type;
+ * see {@link WorkerPool} for why virtual type also needs "pinning.free.drivers".
+ * The pools and the mapping of operations to pools are read from
+ * "worker.pools" section of config. Operations which are not mapped explicitly
+ * go to default pool. If the section is not present, no pools are
+ * created and callers should fall back to Vert.x worker pool.
+ */
+public final class WorkerPoolRegistry implements Initializer, Finalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerPoolRegistry.class);
+    private static final String WORKER_POOLS_CONFIG_KEY = "worker.pools";
+    private static final String POOLS = "pools";
+    private static final String OP_MAPPING = "op.mapping";
+    private static final String DEFAULT_POOL = "default.pool";
+    private static final String POOL_TYPE = "type";
+    private static final String POOL_SIZE = "size";
+    private static final String POOL_QUEUE_LIMIT = "queue.limit";
+    private static final String POOL_PINNING_FREE_DRIVERS = "pinning.free.drivers";
+    private static final String STATS_INTERVAL = "stats.interval.seconds";
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final int DEFAULT_QUEUE_LIMIT = 500;
+    private final Map<String, WorkerPool> pools = new HashMap<>();
+    private final Map<String, WorkerPool> opMapping = new HashMap<>();
+    private WorkerPool defaultPool;
+    private volatile boolean initialized = false;
+
+    private WorkerPoolRegistry() {
+    }
+
+    public static WorkerPoolRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject poolsConfig = config.getJsonObject(WORKER_POOLS_CONFIG_KEY);
+                    if (poolsConfig == null || poolsConfig.isEmpty()) {
+                        LOGGER.info("Worker pools not configured, will use Vert.x worker pool");
+                    } else {
+                        initializePools(poolsConfig);
+                        long interval = poolsConfig.getLong(STATS_INTERVAL, 0L);
+                        if (interval > 0) {
+                            vertx.setPeriodic(interval * 1000, id -> LOGGER.info("Worker pool stats: {}", getStats()));
+                        }
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the pool which should run specified operation
+     *
+     * @param op Operation name from message header
+     * @return Pool for the operation or null if pools are not configured
+     */
+    public WorkerPool getPoolForOp(String op) {
+        if (op != null) {
+            WorkerPool pool = opMapping.get(op);
+            if (pool != null) {
+                return pool;
+            }
+        }
+        return defaultPool;
+    }
+
+    public JsonArray getStats() {
+        JsonArray stats = new JsonArray();
+        pools.values().forEach(pool -> stats.add(pool.getStats()));
+        return stats;
+    }
+
+    @Override
+    public void finalizeComponent() {
+        pools.values().forEach(WorkerPool::shutdown);
+    }
+
+    private void initializePools(JsonObject poolsConfig) {
+        JsonObject poolDefinitions = poolsConfig.getJsonObject(POOLS, new JsonObject());
+        for (Map.Entry<String, Object> entry : poolDefinitions) {
+            JsonObject poolConfig = (JsonObject) entry.getValue();
+            String type = poolConfig.getString(POOL_TYPE, WorkerPool.TYPE_PLATFORM);
+            int size = poolConfig.getInteger(POOL_SIZE, DEFAULT_POOL_SIZE);
+            int queueLimit = poolConfig.getInteger(POOL_QUEUE_LIMIT, DEFAULT_QUEUE_LIMIT);
+            boolean pinningFree = poolConfig.getBoolean(POOL_PINNING_FREE_DRIVERS, false);
+            WorkerPool pool = new WorkerPool(entry.getKey(), type, size, queueLimit, pinningFree);
+            pools.put(entry.getKey(), pool);
+            LOGGER.info("Created worker pool: '{}'", pool.getStats());
+        }
+        String defaultPoolName = poolsConfig.getString(DEFAULT_POOL);
+        defaultPool = pools.get(defaultPoolName);
+        if (defaultPool == null) {
+            throw new IllegalStateException("Default worker pool '" + defaultPoolName + "' is not defined");
+        }
+        JsonObject mapping = poolsConfig.getJsonObject(OP_MAPPING, new JsonObject());
+        for (Map.Entry<String, Object> entry : mapping) {
+            WorkerPool pool = pools.get(String.valueOf(entry.getValue()));
+            if (pool == null) {
+                throw new IllegalStateException(
+                    "Worker pool '" + entry.getValue() + "' for op '" + entry.getKey() + "' is not defined");
+            }
+            opMapping.put(entry.getKey(), pool);
+        }
+    }
+
+    private static final class Holder {
+        private static final WorkerPoolRegistry INSTANCE = new WorkerPoolRegistry();
+    }
+}
@@ -0,0 +1,211 @@
+package org.gooru.nucleus.handlers.classes.app.components;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Groups concurrent writes with same key, so that they are done in one go.
+ * First request for a key becomes leader of the batch and waits for the
+ * window, or till batch is full, for other requests to join. Then it executes
+ * the whole batch and hands over the result of each request to its thread.
+ * <p>
+ * Requests are processed on worker threads, so followers block till the
+ * leader is done, but no longer than their own deadline or the configured
+ * max wait. A follower which gives up still has its write done by the leader,
+ * as is the case for any request which times out while it is being run.
+ * Settings are read from "write.coalescing" section of config, and coalescing
+ * is off unless enabled there.
+ */
+public final class WriteCoalescer implements Initializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteCoalescer.class);
+    private static final String WRITE_COALESCING_CONFIG_KEY = "write.coalescing";
+    private static final String ENABLED = "enabled";
+    private static final String WINDOW_MS = "window.ms";
+    private static final String MAX_BATCH_SIZE = "max.batch.size";
+    private static final String FOLLOWER_MAX_WAIT_MS = "follower.max.wait.ms";
+    private static final long DEFAULT_WINDOW_MS = 5L;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    private static final long DEFAULT_FOLLOWER_MAX_WAIT_MS = 30000L;
+    // Batches which are still open for requests to join, guarded by itself
+    private final Map<String, Batch<?, ?>> openBatches = new HashMap<>();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+    private final AtomicLong followersTimedOut = new AtomicLong();
+    private long windowNanos;
+    private long followerMaxWaitMs;
+    private int maxBatchSize;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private WriteCoalescer() {
+    }
+
+    public static WriteCoalescer getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    JsonObject coalescingConfig = config.getJsonObject(WRITE_COALESCING_CONFIG_KEY, new JsonObject());
+                    long windowMs = coalescingConfig.getLong(WINDOW_MS, DEFAULT_WINDOW_MS);
+                    maxBatchSize = coalescingConfig.getInteger(MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE);
+                    windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+                    followerMaxWaitMs =
+                        coalescingConfig.getLong(FOLLOWER_MAX_WAIT_MS, DEFAULT_FOLLOWER_MAX_WAIT_MS);
+                    if (coalescingConfig.getBoolean(ENABLED, false)) {
+                        if (windowMs <= 0 || maxBatchSize <= 1) {
+                            LOGGER.warn("Invalid window '{}' ms or max batch size '{}', writes will not be coalesced",
+                                windowMs, maxBatchSize);
+                        } else {
+                            enabled = true;
+                            LOGGER.info("Writes will be coalesced with window '{}' ms and max batch size '{}'",
+                                windowMs, maxBatchSize);
+                        }
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Submit the request to batch of the key, and wait for its result
+     *
+     * @param key Requests with same key are executed together
+     * @param item The request
+     * @param deadline Deadline of the request, in epoch millis, or 0 if none
+     * @param executor Executes the batch, returning result of each request in
+     *        the order in which they were given
+     * @param timedOut Result for the request if it could not wait any longer
+     *        for the batch
+     * @return result of the request
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> R submit(String key, T item, long deadline, Function<List<T>, List<R>> executor,
+        Supplier<R> timedOut) {
+        Batch<T, R> batch;
+        int index;
+        synchronized (openBatches) {
+            batch = (Batch<T, R>) openBatches.get(key);
+            if (batch == null) {
+                batch = new Batch<>();
+                openBatches.put(key, batch);
+            }
+            index = batch.items.size();
+            batch.items.add(item);
+            if (batch.items.size() >= maxBatchSize) {
+                openBatches.remove(key);
+                openBatches.notifyAll();
+            }
+        }
+        if (index > 0) {
+            return awaitLeader(batch, index, deadline, timedOut);
+        }
+        awaitFollowers(key, batch);
+        List<R> results;
+        try {
+            results = executor.apply(Collections.unmodifiableList(batch.items));
+        } catch (Throwable e) {
+            batch.results.completeExceptionally(e);
+            throw e;
+        }
+        batch.results.complete(results);
+        recordBatch(batch.items.size());
+        return results.get(0);
+    }
+
+    public JsonObject getStats() {
+        long batchCount = batches.get();
+        long requestCount = requests.get();
+        return new JsonObject().put("enabled", enabled).put("batches", batchCount).put("requests", requestCount)
+            .put("largest.batch", largestBatch.get()).put("followers.timed.out", followersTimedOut.get())
+            .put("average.batch", batchCount == 0 ? 0.0 : (double) requestCount / batchCount);
+    }
+
+    private void awaitFollowers(String key, Batch<?, ?> batch) {
+        long waitUntil = System.nanoTime() + windowNanos;
+        synchronized (openBatches) {
+            try {
+                while (openBatches.get(key) == batch) {
+                    long remaining = waitUntil - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(openBatches, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (openBatches.get(key) == batch) {
+                openBatches.remove(key);
+            }
+        }
+    }
+
+    private <R> R awaitLeader(Batch<?, R> batch, int index, long deadline, Supplier<R> timedOut) {
+        long wait = followerMaxWaitMs;
+        if (deadline > 0) {
+            wait = Math.min(wait, Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        try {
+            return batch.results.get(wait, TimeUnit.MILLISECONDS).get(index);
+        } catch (TimeoutException e) {
+            followersTimedOut.incrementAndGet();
+            LOGGER.warn("Gave up waiting '{}' ms for batch leader", wait);
+            return timedOut.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return timedOut.get();
+        } catch (ExecutionException e) {
+            // Same failure as leader had, as if this request was run by itself
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private void recordBatch(int size) {
+        batches.incrementAndGet();
+        requests.addAndGet(size);
+        largestBatch.accumulateAndGet(size, Math::max);
+    }
+
+    private static final class Batch<T, R> {
+        private final List<T> items = new ArrayList<>();
+        private final CompletableFuture<List<R>> results = new CompletableFuture<>();
+    }
+
+    private static final class Holder {
+        private static final WriteCoalescer INSTANCE = new WriteCoalescer();
+    }
+}
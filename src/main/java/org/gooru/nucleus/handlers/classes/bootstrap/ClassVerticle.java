@@ -1,13 +1,18 @@
 package org.gooru.nucleus.handlers.classes.bootstrap;
 
+import org.gooru.nucleus.handlers.classes.app.components.ApplicationMetrics;
+import org.gooru.nucleus.handlers.classes.app.components.ConnectionPoolSizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.codecs.ReplyCodecRegistry;
+import org.gooru.nucleus.handlers.classes.bootstrap.dispatch.MessageDispatcher;
+import org.gooru.nucleus.handlers.classes.bootstrap.dispatch.MessageDispatcherBuilder;
+import org.gooru.nucleus.handlers.classes.bootstrap.events.EventPublisher;
 import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
 import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizers;
 import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
 import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializers;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.constants.MessagebusEndpoints;
-import org.gooru.nucleus.handlers.classes.processors.ProcessorBuilder;
-import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+import org.gooru.nucleus.handlers.classes.processors.DeadlineHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +27,7 @@ import io.vertx.core.json.JsonObject;
 public class ClassVerticle extends AbstractVerticle {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassVerticle.class);
+    private EventPublisher eventPublisher;
 
     @Override
     public void start(Future<Void> voidFuture) throws Exception {
@@ -33,15 +39,23 @@ public class ClassVerticle extends AbstractVerticle {
             blockingFuture.complete();
         }, startApplicationFuture -> {
             if (startApplicationFuture.succeeded()) {
+                MessageDispatcher dispatcher = MessageDispatcherBuilder.build(vertx, config());
+                eventPublisher = EventPublisher.build(vertx, config());
+                ApplicationMetrics metrics = ApplicationMetrics.getInstance();
+                eb.consumer(MessagebusEndpoints.MBEP_CLASS_METRICS,
+                    message -> message.reply(MetricsReporter.report()));
                 eb.consumer(MessagebusEndpoints.MBEP_CLASS, message -> {
                     LOGGER.debug("Received message: '{}'", message.body());
-                    vertx.executeBlocking(future -> {
-                        MessageResponse result = ProcessorBuilder.build(message).process();
-                        future.complete(result);
-                    }, res -> {
-                        MessageResponse result = (MessageResponse) res.result();
+                    long receivedAt = System.nanoTime();
+                    String op = message.headers().get(MessageConstants.MSG_HEADER_OP);
+                    message.headers().set(MessageConstants.MSG_HEADER_RECEIVED_AT, String.valueOf(receivedAt));
+                    DeadlineHelper.normalize(message.headers());
+                    dispatcher.dispatch(message, result -> {
                         LOGGER.debug("Sending response: '{}'", result.reply());
-                        message.reply(result.reply(), result.deliveryOptions());
+                        long replyStart = System.nanoTime();
+                        message.reply(result.reply(), ReplyCodecRegistry.getInstance().replyOptions(message,
+                            result.reply(), result.deliveryOptions()));
+                        metrics.recordPhase(op, ApplicationMetrics.PHASE_REPLY, replyStart);
                         JsonObject eventData = result.event();
                         if (eventData != null) {
                             String sessionToken =
@@ -51,8 +65,9 @@ public class ClassVerticle extends AbstractVerticle {
                             } else {
                                 LOGGER.warn("Invalid session token received");
                             }
-                            eb.send(MessagebusEndpoints.MBEP_EVENT, eventData);
+                            eventPublisher.publish(eventData);
                         }
+                        metrics.recordPhase(op, ApplicationMetrics.PHASE_TOTAL, receivedAt);
                     });
                 }).completionHandler(result -> {
                     if (result.succeeded()) {
@@ -73,15 +88,20 @@ public class ClassVerticle extends AbstractVerticle {
 
     @Override
     public void stop() throws Exception {
+        if (eventPublisher != null) {
+            eventPublisher.flush();
+        }
         shutDownApplication();
         super.stop();
     }
 
     private void startApplication() {
         Initializers initializers = new Initializers();
+        // Let the initializers know how many instances share this process
+        JsonObject config = config().copy().put(ConnectionPoolSizer.DEPLOYMENT_INSTANCES, context.getInstanceCount());
         try {
             for (Initializer initializer : initializers) {
-                initializer.initializeComponent(vertx, config());
+                initializer.initializeComponent(vertx, config);
             }
         } catch (IllegalStateException ie) {
             LOGGER.error("Error initializing application", ie);
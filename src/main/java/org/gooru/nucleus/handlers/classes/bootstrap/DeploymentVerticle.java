@@ -0,0 +1,58 @@
+package org.gooru.nucleus.handlers.classes.bootstrap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Verticle which deploys the {@link ClassVerticle} with instance count derived
+ * from the cores available, unless the count is specified in "deployment"
+ * section of config. This should be deployed with single instance.
+ * <p>
+ * The instance count reaches the initializers, which size the DB pool based on
+ * it.
+ */
+public class DeploymentVerticle extends AbstractVerticle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeploymentVerticle.class);
+    private static final String DEPLOYMENT_CONFIG_KEY = "deployment";
+    private static final String INSTANCES = "instances";
+    private static final String INSTANCES_AUTO = "auto";
+    private static final String INSTANCES_PER_CORE = "instances.per.core";
+    private static final String MAX_INSTANCES = "max.instances";
+
+    @Override
+    public void start(Future<Void> startFuture) throws Exception {
+        JsonObject deploymentConfig = config().getJsonObject(DEPLOYMENT_CONFIG_KEY, new JsonObject());
+        int instances = computeInstances(deploymentConfig);
+        DeploymentOptions options = new DeploymentOptions().setConfig(config()).setInstances(instances);
+        vertx.deployVerticle(ClassVerticle.class.getName(), options, result -> {
+            if (result.succeeded()) {
+                LOGGER.info("Deployed '{}' instances of class verticle", instances);
+                startFuture.complete();
+            } else {
+                LOGGER.error("Not able to deploy class verticle", result.cause());
+                startFuture.fail(result.cause());
+            }
+        });
+    }
+
+    private static int computeInstances(JsonObject deploymentConfig) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        Object instancesValue = deploymentConfig.getValue(INSTANCES, INSTANCES_AUTO);
+        if (instancesValue instanceof Integer && (Integer) instancesValue > 0) {
+            LOGGER.info("Using configured instance count '{}' on '{}' cores", instancesValue, cores);
+            return (Integer) instancesValue;
+        }
+        int perCore = deploymentConfig.getInteger(INSTANCES_PER_CORE, 1);
+        int maxInstances = deploymentConfig.getInteger(MAX_INSTANCES, Integer.MAX_VALUE);
+        int instances = Math.max(1, Math.min(cores * perCore, maxInstances));
+        LOGGER.info("Derived instance count '{}' from '{}' cores, '{}' instances per core and max '{}'", instances,
+            cores, perCore, maxInstances);
+        return instances;
+    }
+}
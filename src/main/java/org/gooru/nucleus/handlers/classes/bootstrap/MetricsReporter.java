@@ -0,0 +1,50 @@
+package org.gooru.nucleus.handlers.classes.bootstrap;
+
+import org.gooru.nucleus.handlers.classes.app.components.AdmissionController;
+import org.gooru.nucleus.handlers.classes.app.components.ApplicationMetrics;
+import org.gooru.nucleus.handlers.classes.app.components.AuthorizationCache;
+import org.gooru.nucleus.handlers.classes.app.components.ClassCache;
+import org.gooru.nucleus.handlers.classes.app.components.ClassCodeIndex;
+import org.gooru.nucleus.handlers.classes.app.components.ClassesForUserCache;
+import org.gooru.nucleus.handlers.classes.app.components.DemographicCache;
+import org.gooru.nucleus.handlers.classes.app.components.InvalidationBus;
+import org.gooru.nucleus.handlers.classes.app.components.ReadReplicaRouter;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
+import org.gooru.nucleus.handlers.classes.app.components.TransactionRetryPolicy;
+import org.gooru.nucleus.handlers.classes.app.components.VisibleContentIndex;
+import org.gooru.nucleus.handlers.classes.app.components.WorkerPoolRegistry;
+import org.gooru.nucleus.handlers.classes.app.components.WriteCoalescer;
+import org.gooru.nucleus.handlers.classes.processors.DeadlineHelper;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.transactions.TransactionExecutor;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Builds the reply of metrics end point, which has the phase timers along with
+ * stats of the components of this process.
+ */
+final class MetricsReporter {
+
+    private MetricsReporter() {
+        throw new AssertionError();
+    }
+
+    static JsonObject report() {
+        return new JsonObject().put("timers", ApplicationMetrics.getInstance().getTimerStats())
+            .put("worker.pools", WorkerPoolRegistry.getInstance().getStats())
+            .put("admission.control", AdmissionController.getInstance().getStats())
+            .put("round.trips", TransactionExecutor.getRoundTripStats())
+            .put("transaction.retry", TransactionRetryPolicy.getInstance().getStats())
+            .put("statement.timeouts", StatementTimeoutPolicy.getInstance().getStats())
+            .put("write.coalescing", WriteCoalescer.getInstance().getStats())
+            .put("replicas", ReadReplicaRouter.getInstance().getStats())
+            .put("classes.for.user.cache", ClassesForUserCache.getInstance().getStats())
+            .put("class.cache", ClassCache.getInstance().getStats())
+            .put("authorization.cache", AuthorizationCache.getInstance().getStats())
+            .put("class.code.index", ClassCodeIndex.getInstance().getStats())
+            .put("demographic.cache", DemographicCache.getInstance().getStats())
+            .put("visible.content.index", VisibleContentIndex.getInstance().getStats())
+            .put("invalidation.bus", InvalidationBus.getInstance().getStats())
+            .put("expired.requests", DeadlineHelper.expiredCount());
+    }
+}
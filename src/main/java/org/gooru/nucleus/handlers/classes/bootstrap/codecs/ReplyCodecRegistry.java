@@ -0,0 +1,124 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.codecs;
+
+import java.lang.reflect.Method;
+
+import org.gooru.nucleus.handlers.classes.bootstrap.shutdown.Finalizer;
+import org.gooru.nucleus.handlers.classes.bootstrap.startup.Initializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Registers {@link ReplyMessageCodec} with event bus, if "zero.copy.replies"
+ * is enabled in config, and decides which replies can use it.
+ * <p>
+ * Only the replies to messages sent from this JVM use the codec. Replies to
+ * messages received over the wire use default codec, as the codec is not
+ * known on other nodes and default codec has same wire format anyway.
+ * <p>
+ * Without clustering every sender is local. With clustering, Vert.x does not
+ * tell through its API whether a message came over the wire, so it is looked
+ * up on the clustered message implementation, reflectively and in one place;
+ * if that is not there in the Vert.x version in use, or fails, replies use
+ * default codec.
+ */
+public final class ReplyCodecRegistry implements Initializer, Finalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplyCodecRegistry.class);
+    private static final String ZERO_COPY_REPLIES = "zero.copy.replies";
+    private static final String CLUSTERED_MESSAGE_CLASS = "io.vertx.core.eventbus.impl.clustered.ClusteredMessage";
+    private static final String FROM_WIRE_METHOD = "isFromWire";
+    private Vertx vertx;
+    // Set only when clustered
+    private Method fromWire;
+    private volatile boolean enabled = false;
+    private volatile boolean initialized = false;
+
+    private ReplyCodecRegistry() {
+    }
+
+    public static ReplyCodecRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void initializeComponent(Vertx vertx, JsonObject config) {
+        if (!initialized) {
+            synchronized (Holder.INSTANCE) {
+                if (!initialized) {
+                    if (config.getBoolean(ZERO_COPY_REPLIES, false)) {
+                        fromWire = vertx.isClustered() ? lookupFromWire() : null;
+                        if (!vertx.isClustered() || fromWire != null) {
+                            this.vertx = vertx;
+                            vertx.eventBus().registerCodec(new ReplyMessageCodec());
+                            enabled = true;
+                            LOGGER.info("Zero copy replies enabled for local senders");
+                        }
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivery options for reply to specified message, with codec set if
+     * reply is going to be delivered locally
+     *
+     * @param message Message being replied to
+     * @param reply Reply body
+     * @param options Delivery options of the response
+     * @return the options passed, updated if needed
+     */
+    public DeliveryOptions replyOptions(Message<?> message, Object reply, DeliveryOptions options) {
+        if (enabled && reply instanceof JsonObject && !receivedFromWire(message)) {
+            options.setCodecName(ReplyMessageCodec.CODEC_NAME);
+        }
+        return options;
+    }
+
+    @Override
+    public void finalizeComponent() {
+        // Codec stays registered if it was disabled after a failed lookup
+        if (vertx != null) {
+            enabled = false;
+            vertx.eventBus().unregisterCodec(ReplyMessageCodec.CODEC_NAME);
+            vertx = null;
+        }
+    }
+
+    private boolean receivedFromWire(Message<?> message) {
+        if (fromWire == null) {
+            return false;
+        }
+        // Anything which could not be verified as local is taken to be remote
+        if (!fromWire.getDeclaringClass().isInstance(message)) {
+            return true;
+        }
+        try {
+            return !Boolean.FALSE.equals(fromWire.invoke(message));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Would fail the same way for every message
+            enabled = false;
+            LOGGER.warn("Zero copy replies disabled, not able to find if message came over the wire", e);
+            return true;
+        }
+    }
+
+    private static Method lookupFromWire() {
+        try {
+            return Class.forName(CLUSTERED_MESSAGE_CLASS).getMethod(FROM_WIRE_METHOD);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Zero copy replies disabled, local senders can not be told apart in this Vert.x version", e);
+            return null;
+        }
+    }
+
+    private static final class Holder {
+        private static final ReplyCodecRegistry INSTANCE = new ReplyCodecRegistry();
+    }
+}
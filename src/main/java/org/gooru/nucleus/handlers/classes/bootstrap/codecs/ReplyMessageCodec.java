@@ -0,0 +1,47 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.codecs;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Codec for replies which hands over the same JsonObject to local consumer
+ * instead of deep copy done by default codec. This is safe only because the
+ * reply is not touched by this module once it is sent.
+ * <p>
+ * The wire format is same as that of default JsonObject codec, i.e. length
+ * prefixed encoded JSON.
+ */
+public final class ReplyMessageCodec implements MessageCodec<JsonObject, JsonObject> {
+
+    public static final String CODEC_NAME = "nucleus.class.reply";
+
+    @Override
+    public void encodeToWire(Buffer buffer, JsonObject jsonObject) {
+        Buffer encoded = Buffer.buffer(jsonObject.encode());
+        buffer.appendInt(encoded.length());
+        buffer.appendBuffer(encoded);
+    }
+
+    @Override
+    public JsonObject decodeFromWire(int pos, Buffer buffer) {
+        int length = buffer.getInt(pos);
+        int start = pos + 4;
+        return new JsonObject(buffer.getString(start, start + length));
+    }
+
+    @Override
+    public JsonObject transform(JsonObject jsonObject) {
+        return jsonObject;
+    }
+
+    @Override
+    public String name() {
+        return CODEC_NAME;
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
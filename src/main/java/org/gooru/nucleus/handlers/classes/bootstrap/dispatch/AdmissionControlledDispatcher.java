@@ -0,0 +1,44 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.dispatch;
+
+import java.util.ResourceBundle;
+
+import org.gooru.nucleus.handlers.classes.app.components.AdmissionController;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.Message;
+
+/**
+ * Dispatcher which asks {@link AdmissionController} before handing over the
+ * message to actual dispatcher. Messages which are not admitted are replied to
+ * right away with overloaded response, so that caller can retry somewhere
+ * else.
+ */
+class AdmissionControlledDispatcher implements MessageDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionControlledDispatcher.class);
+    private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("messages");
+    private final MessageDispatcher delegate;
+
+    AdmissionControlledDispatcher(MessageDispatcher delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void dispatch(Message<Object> message, Handler<MessageResponse> responseHandler) {
+        AdmissionController controller = AdmissionController.getInstance();
+        if (!controller.tryAdmit()) {
+            LOGGER.warn("Message not admitted, server overloaded");
+            responseHandler.handle(MessageResponseFactory.createOverloadedResponse(
+                RESOURCE_BUNDLE.getString("server.overloaded"), controller.getRetryAfterSeconds()));
+            return;
+        }
+        delegate.dispatch(message, result -> {
+            controller.release();
+            responseHandler.handle(result);
+        });
+    }
+}
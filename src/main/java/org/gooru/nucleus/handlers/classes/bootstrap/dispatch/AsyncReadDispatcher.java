@@ -0,0 +1,45 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.dispatch;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
+import org.gooru.nucleus.handlers.classes.processors.ProcessorBuilder;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+
+/**
+ * Dispatcher which serves the configured read operations on the event loop
+ * using the async repo, and hands over rest of the operations to the actual
+ * dispatcher. The response is always handed back on the verticle context, as
+ * async client may complete on a different one.
+ */
+class AsyncReadDispatcher implements MessageDispatcher {
+
+    static final Set<String> SUPPORTED_OPS = Collections.singleton(MessageConstants.MSG_OP_CLASS_GET);
+    private final Vertx vertx;
+    private final MessageDispatcher delegate;
+    private final Set<String> asyncOps;
+
+    AsyncReadDispatcher(Vertx vertx, MessageDispatcher delegate, Set<String> asyncOps) {
+        this.vertx = vertx;
+        this.delegate = delegate;
+        this.asyncOps = asyncOps;
+    }
+
+    @Override
+    public void dispatch(Message<Object> message, Handler<MessageResponse> responseHandler) {
+        String op = message.headers().get(MessageConstants.MSG_HEADER_OP);
+        if (op == null || !asyncOps.contains(op)) {
+            delegate.dispatch(message, responseHandler);
+            return;
+        }
+        Context context = vertx.getOrCreateContext();
+        ProcessorBuilder.buildAsync(message)
+            .process(result -> context.runOnContext(v -> responseHandler.handle(result)));
+    }
+}
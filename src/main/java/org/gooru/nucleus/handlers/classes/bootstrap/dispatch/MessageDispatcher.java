@@ -0,0 +1,12 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.dispatch;
+
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.Message;
+
+public interface MessageDispatcher {
+
+    void dispatch(Message<Object> message, Handler<MessageResponse> responseHandler);
+
+}
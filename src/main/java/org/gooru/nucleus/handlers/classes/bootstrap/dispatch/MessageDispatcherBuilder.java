@@ -0,0 +1,92 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.dispatch;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.gooru.nucleus.handlers.classes.app.components.AsyncDataSourceRegistry;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public final class MessageDispatcherBuilder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageDispatcherBuilder.class);
+    private static final String DISPATCH_CONFIG_KEY = "dispatch";
+    private static final String WORKER_POOLS_CONFIG_KEY = "worker.pools";
+    private static final String ASYNC_OPS_CONFIG_KEY = "async.ops";
+    private static final String MODE = "mode";
+    private static final String MODE_UNORDERED = "unordered";
+    private static final String MAX_CONCURRENCY = "max.concurrency";
+    private static final String ORDERING_KEY = "ordering.key";
+    private static final String ORDERING_OPS = "ordering.ops";
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private MessageDispatcherBuilder() {
+        throw new AssertionError();
+    }
+
+    public static MessageDispatcher build(Vertx vertx, JsonObject config) {
+        MessageDispatcher dispatcher = buildBlockingDispatcher(vertx, config);
+        Set<String> asyncOps = asyncOps(config);
+        if (!asyncOps.isEmpty()) {
+            dispatcher = new AsyncReadDispatcher(vertx, dispatcher, asyncOps);
+        }
+        return new AdmissionControlledDispatcher(dispatcher);
+    }
+
+    private static MessageDispatcher buildBlockingDispatcher(Vertx vertx, JsonObject config) {
+        JsonObject dispatchConfig = config.getJsonObject(DISPATCH_CONFIG_KEY);
+        if (dispatchConfig == null || !MODE_UNORDERED.equalsIgnoreCase(dispatchConfig.getString(MODE))) {
+            LOGGER.info("Using ordered dispatch of messages");
+            if (config.getJsonObject(WORKER_POOLS_CONFIG_KEY) != null) {
+                LOGGER.warn("Worker pools are only used with unordered dispatch, ignoring them");
+            }
+            return new OrderedMessageDispatcher(vertx);
+        }
+        int maxConcurrency = dispatchConfig.getInteger(MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY);
+        if (maxConcurrency <= 0) {
+            LOGGER.warn("Invalid max concurrency '{}' for dispatch, using '{}'", maxConcurrency,
+                DEFAULT_MAX_CONCURRENCY);
+            maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+        }
+        String orderingKey = dispatchConfig.getString(ORDERING_KEY);
+        Set<String> orderedOps = new HashSet<>();
+        JsonArray ops = dispatchConfig.getJsonArray(ORDERING_OPS);
+        if (ops != null) {
+            ops.forEach(op -> orderedOps.add(op.toString()));
+        }
+        LOGGER.info("Using unordered dispatch of messages with max concurrency '{}' and ordering key '{}'",
+            maxConcurrency, orderingKey);
+        return new UnorderedMessageDispatcher(vertx, maxConcurrency, orderingKey,
+            Collections.unmodifiableSet(orderedOps));
+    }
+
+    private static Set<String> asyncOps(JsonObject config) {
+        JsonArray ops = config.getJsonArray(ASYNC_OPS_CONFIG_KEY);
+        if (ops == null || ops.isEmpty()) {
+            return Collections.emptySet();
+        }
+        if (AsyncDataSourceRegistry.getInstance().getAsyncClient() == null) {
+            LOGGER.warn("Async ops configured without async data source, ignoring them");
+            return Collections.emptySet();
+        }
+        Set<String> asyncOps = new HashSet<>();
+        for (Object op : ops) {
+            if (!AsyncReadDispatcher.SUPPORTED_OPS.contains(op.toString())) {
+                LOGGER.warn("Op '{}' is not supported by async repo, will be processed on worker", op);
+            } else if (StatementTimeoutPolicy.getInstance().timeoutMillis(op.toString()) > 0) {
+                // Async client can not apply the timeout the way DB handlers do
+                LOGGER.warn("Op '{}' has statement timeout, will be processed on worker", op);
+            } else {
+                asyncOps.add(op.toString());
+            }
+        }
+        LOGGER.info("Ops '{}' will be processed asynchronously", asyncOps);
+        return Collections.unmodifiableSet(asyncOps);
+    }
+}
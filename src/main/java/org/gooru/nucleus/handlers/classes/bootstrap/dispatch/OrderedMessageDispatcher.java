@@ -0,0 +1,44 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.dispatch;
+
+import java.util.ResourceBundle;
+
+import org.gooru.nucleus.handlers.classes.processors.ProcessorBuilder;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+
+/**
+ * Dispatcher which processes the messages for a verticle instance one after
+ * another on the worker pool. This is the default mode of dispatch.
+ */
+class OrderedMessageDispatcher implements MessageDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderedMessageDispatcher.class);
+    private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("messages");
+    private final Vertx vertx;
+
+    OrderedMessageDispatcher(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    @Override
+    public void dispatch(Message<Object> message, Handler<MessageResponse> responseHandler) {
+        vertx.<MessageResponse>executeBlocking(future -> {
+            MessageResponse result = ProcessorBuilder.build(message).process();
+            future.complete(result);
+        }, res -> {
+            if (res.succeeded()) {
+                responseHandler.handle(res.result());
+            } else {
+                LOGGER.error("Processing of message failed", res.cause());
+                responseHandler.handle(
+                    MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("unexpected.error")));
+            }
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.dispatch;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import org.gooru.nucleus.handlers.classes.app.components.AdmissionController;
+import org.gooru.nucleus.handlers.classes.app.components.WorkerPool;
+import org.gooru.nucleus.handlers.classes.app.components.WorkerPoolRegistry;
+import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
+import org.gooru.nucleus.handlers.classes.processors.ProcessorBuilder;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+
+/**
+ * Dispatcher which processes independent messages concurrently on the worker
+ * pool, with at most maxConcurrency messages in flight for a verticle instance.
+ * Messages over that limit wait in a FIFO queue.
+ * <p>
+ * If an ordering key is configured, messages for the configured operations
+ * which carry the same value for that header (e.g. classId) are processed one
+ * after another in the order of arrival. Note that the ordering is only
+ * guaranteed within a verticle instance.
+ * <p>
+ * Messages are run on the worker pool configured for their operation in
+ * {@link WorkerPoolRegistry}, or on the Vert.x worker pool if no pools are
+ * configured. If the pool queue is full, the message is rejected with
+ * overloaded response.
+ * <p>
+ * All the state here is touched only from the verticle context (dispatch is
+ * called from consumer and the result handlers are run on same context) and
+ * hence there is no need for synchronization.
+ */
+class UnorderedMessageDispatcher implements MessageDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnorderedMessageDispatcher.class);
+    private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("messages");
+    private final Vertx vertx;
+    private final int maxConcurrency;
+    private final String orderingKey;
+    private final Set<String> orderedOps;
+    private final Deque<DispatchTask> pending = new ArrayDeque<>();
+    private final Map<String, Deque<DispatchTask>> keyedTasks = new HashMap<>();
+    private int inFlight = 0;
+
+    UnorderedMessageDispatcher(Vertx vertx, int maxConcurrency, String orderingKey, Set<String> orderedOps) {
+        this.vertx = vertx;
+        this.maxConcurrency = maxConcurrency;
+        this.orderingKey = orderingKey;
+        this.orderedOps = orderedOps;
+    }
+
+    @Override
+    public void dispatch(Message<Object> message, Handler<MessageResponse> responseHandler) {
+        DispatchTask task = new DispatchTask(message, responseHandler, orderingKeyValue(message));
+        if (task.key != null) {
+            Deque<DispatchTask> waiting = keyedTasks.get(task.key);
+            if (waiting != null) {
+                // Some other message with same key is being processed, wait
+                // for it to finish
+                waiting.add(task);
+                return;
+            }
+            keyedTasks.put(task.key, new ArrayDeque<>());
+        }
+        submit(task);
+    }
+
+    private void submit(DispatchTask task) {
+        if (inFlight < maxConcurrency) {
+            run(task);
+        } else {
+            pending.add(task);
+        }
+    }
+
+    private void run(DispatchTask task) {
+        inFlight++;
+        WorkerPool pool =
+            WorkerPoolRegistry.getInstance().getPoolForOp(task.message.headers().get(MessageConstants.MSG_HEADER_OP));
+        if (pool == null) {
+            vertx.<MessageResponse>executeBlocking(future -> {
+                MessageResponse result = ProcessorBuilder.build(task.message).process();
+                future.complete(result);
+            }, false, res -> complete(task, res));
+        } else if (!pool.execute(vertx.getOrCreateContext(), () -> ProcessorBuilder.build(task.message).process(),
+            res -> complete(task, res))) {
+            LOGGER.warn("Worker pool '{}' is saturated, rejecting message", pool.getName());
+            // Complete on next tick to avoid recursing while draining pending
+            vertx.runOnContext(v -> complete(task,
+                Future.succeededFuture(MessageResponseFactory.createOverloadedResponse(
+                    RESOURCE_BUNDLE.getString("worker.pool.saturated"),
+                    AdmissionController.getInstance().getRetryAfterSeconds()))));
+        }
+    }
+
+    private void complete(DispatchTask task, AsyncResult<MessageResponse> res) {
+        inFlight--;
+        if (res.succeeded()) {
+            task.responseHandler.handle(res.result());
+        } else {
+            LOGGER.error("Processing of message failed", res.cause());
+            task.responseHandler.handle(
+                MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("unexpected.error")));
+        }
+        if (task.key != null) {
+            DispatchTask next = keyedTasks.get(task.key).poll();
+            if (next == null) {
+                keyedTasks.remove(task.key);
+            } else {
+                submit(next);
+            }
+        }
+        while (inFlight < maxConcurrency && !pending.isEmpty()) {
+            run(pending.poll());
+        }
+    }
+
+    private String orderingKeyValue(Message<Object> message) {
+        if (orderingKey == null) {
+            return null;
+        }
+        String op = message.headers().get(MessageConstants.MSG_HEADER_OP);
+        if (!orderedOps.isEmpty() && (op == null || !orderedOps.contains(op))) {
+            return null;
+        }
+        String value = message.headers().get(orderingKey);
+        return (value == null || value.isEmpty()) ? null : value;
+    }
+
+    private static final class DispatchTask {
+        private final Message<Object> message;
+        private final Handler<MessageResponse> responseHandler;
+        private final String key;
+
+        DispatchTask(Message<Object> message, Handler<MessageResponse> responseHandler, String key) {
+            this.message = message;
+            this.responseHandler = responseHandler;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.dispatch;
+
+/**
+ * This package contains the machinery which hands over the messages received
+ * by the verticle to the processors. The primary interface exposed is
+ * MessageDispatcher which takes the message and a handler which is called on
+ * the verticle context once the response is available. The dispatcher to be
+ * used is selected by MessageDispatcherBuilder based on the "dispatch" section
+ * of the config. In absence of this section, the messages are processed one
+ * after another for a verticle instance, which was the original behavior
+ */
@@ -0,0 +1,113 @@
+package org.gooru.nucleus.handlers.classes.bootstrap.events;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.gooru.nucleus.handlers.classes.constants.MessagebusEndpoints;
+import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Publisher of events to event end point, one per verticle instance. It is
+ * only to be used from verticle's context, hence there is no synchronization.
+ * <p>
+ * Events of the types listed in "batched.events" are held for the batch window
+ * and then sent together in one envelope, or earlier if batch max size is
+ * reached. Identical events within same window, e.g. repeated updates of a
+ * class by same session, are sent only once. All other events are sent as soon
+ * as they are published.
+ */
+public final class EventPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventPublisher.class);
+    private static final String EVENT_PUBLISHING_CONFIG_KEY = "event.publishing";
+    private static final String BATCHED_EVENTS = "batched.events";
+    private static final String BATCH_WINDOW_MS = "batch.window.ms";
+    private static final String BATCH_MAX_SIZE = "batch.max.size";
+    private static final long DEFAULT_BATCH_WINDOW_MS = 50L;
+    private static final int DEFAULT_BATCH_MAX_SIZE = 100;
+    private static final long NO_TIMER = -1L;
+
+    private final Vertx vertx;
+    private final Set<String> batchedEvents;
+    private final long batchWindowMs;
+    private final int batchMaxSize;
+    // Keyed by encoded event so that identical events are coalesced
+    private final Map<String, JsonObject> pending = new LinkedHashMap<>();
+    private long timerId = NO_TIMER;
+
+    private EventPublisher(Vertx vertx, Set<String> batchedEvents, long batchWindowMs, int batchMaxSize) {
+        this.vertx = vertx;
+        this.batchedEvents = batchedEvents;
+        this.batchWindowMs = batchWindowMs;
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    public static EventPublisher build(Vertx vertx, JsonObject config) {
+        JsonObject publishingConfig = config.getJsonObject(EVENT_PUBLISHING_CONFIG_KEY, new JsonObject());
+        Set<String> batchedEvents = new HashSet<>();
+        JsonArray events = publishingConfig.getJsonArray(BATCHED_EVENTS);
+        if (events != null) {
+            events.forEach(event -> batchedEvents.add(event.toString()));
+        }
+        long batchWindowMs = publishingConfig.getLong(BATCH_WINDOW_MS, DEFAULT_BATCH_WINDOW_MS);
+        int batchMaxSize = publishingConfig.getInteger(BATCH_MAX_SIZE, DEFAULT_BATCH_MAX_SIZE);
+        if (batchWindowMs <= 0 || batchMaxSize <= 1) {
+            if (!batchedEvents.isEmpty()) {
+                LOGGER.warn("Invalid batch window '{}' or max size '{}', events will not be batched", batchWindowMs,
+                    batchMaxSize);
+            }
+            batchedEvents.clear();
+        }
+        if (!batchedEvents.isEmpty()) {
+            LOGGER.info("Events '{}' will be batched with window '{}' ms and max size '{}'", batchedEvents,
+                batchWindowMs, batchMaxSize);
+        }
+        return new EventPublisher(vertx, Collections.unmodifiableSet(batchedEvents), batchWindowMs, batchMaxSize);
+    }
+
+    public void publish(JsonObject event) {
+        if (!batchedEvents.contains(EventBuilderFactory.getEventName(event))) {
+            vertx.eventBus().send(MessagebusEndpoints.MBEP_EVENT, event);
+            return;
+        }
+        pending.putIfAbsent(event.encode(), event);
+        if (pending.size() >= batchMaxSize) {
+            flush();
+        } else if (timerId == NO_TIMER) {
+            timerId = vertx.setTimer(batchWindowMs, id -> {
+                timerId = NO_TIMER;
+                flush();
+            });
+        }
+    }
+
+    public void flush() {
+        if (timerId != NO_TIMER) {
+            vertx.cancelTimer(timerId);
+            timerId = NO_TIMER;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        JsonObject eventData;
+        if (pending.size() == 1) {
+            eventData = pending.values().iterator().next();
+        } else {
+            JsonArray events = new JsonArray();
+            pending.values().forEach(events::add);
+            eventData = EventBuilderFactory.buildBatchEvent(events);
+        }
+        LOGGER.debug("Publishing '{}' batched events", pending.size());
+        pending.clear();
+        vertx.eventBus().send(MessagebusEndpoints.MBEP_EVENT, eventData);
+    }
+}
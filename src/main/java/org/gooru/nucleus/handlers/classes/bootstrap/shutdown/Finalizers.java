@@ -4,7 +4,15 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.gooru.nucleus.handlers.classes.app.components.AsyncDataSourceRegistry;
+import org.gooru.nucleus.handlers.classes.app.components.ClassCodeIndex;
 import org.gooru.nucleus.handlers.classes.app.components.DataSourceRegistry;
+import org.gooru.nucleus.handlers.classes.app.components.EventOutbox;
+import org.gooru.nucleus.handlers.classes.app.components.InvalidationBus;
+import org.gooru.nucleus.handlers.classes.app.components.MemberCountStore;
+import org.gooru.nucleus.handlers.classes.app.components.ReadReplicaRouter;
+import org.gooru.nucleus.handlers.classes.app.components.WorkerPoolRegistry;
+import org.gooru.nucleus.handlers.classes.bootstrap.codecs.ReplyCodecRegistry;
 
 public class Finalizers implements Iterable<Finalizer> {
 
@@ -12,6 +20,14 @@ public class Finalizers implements Iterable<Finalizer> {
 
     public Finalizers() {
         List<Finalizer> finalizers = new ArrayList<>();
+        finalizers.add(InvalidationBus.getInstance());
+        finalizers.add(EventOutbox.getInstance());
+        finalizers.add(MemberCountStore.getInstance());
+        finalizers.add(ClassCodeIndex.getInstance());
+        finalizers.add(ReplyCodecRegistry.getInstance());
+        finalizers.add(ReadReplicaRouter.getInstance());
+        finalizers.add(WorkerPoolRegistry.getInstance());
+        finalizers.add(AsyncDataSourceRegistry.getInstance());
         finalizers.add(DataSourceRegistry.getInstance());
         internalIterator = finalizers.iterator();
     }
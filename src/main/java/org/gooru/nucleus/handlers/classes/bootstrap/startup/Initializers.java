@@ -4,8 +4,26 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.gooru.nucleus.handlers.classes.app.components.AdmissionController;
 import org.gooru.nucleus.handlers.classes.app.components.AppConfiguration;
+import org.gooru.nucleus.handlers.classes.app.components.ApplicationMetrics;
+import org.gooru.nucleus.handlers.classes.app.components.AsyncDataSourceRegistry;
+import org.gooru.nucleus.handlers.classes.app.components.AuthorizationCache;
+import org.gooru.nucleus.handlers.classes.app.components.ClassCache;
+import org.gooru.nucleus.handlers.classes.app.components.ClassCodeIndex;
+import org.gooru.nucleus.handlers.classes.app.components.ClassesForUserCache;
 import org.gooru.nucleus.handlers.classes.app.components.DataSourceRegistry;
+import org.gooru.nucleus.handlers.classes.app.components.DemographicCache;
+import org.gooru.nucleus.handlers.classes.app.components.EventOutbox;
+import org.gooru.nucleus.handlers.classes.app.components.InvalidationBus;
+import org.gooru.nucleus.handlers.classes.app.components.MemberCountStore;
+import org.gooru.nucleus.handlers.classes.app.components.ReadReplicaRouter;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
+import org.gooru.nucleus.handlers.classes.app.components.TransactionRetryPolicy;
+import org.gooru.nucleus.handlers.classes.app.components.VisibleContentIndex;
+import org.gooru.nucleus.handlers.classes.app.components.WorkerPoolRegistry;
+import org.gooru.nucleus.handlers.classes.app.components.WriteCoalescer;
+import org.gooru.nucleus.handlers.classes.bootstrap.codecs.ReplyCodecRegistry;
 
 public class Initializers implements Iterable<Initializer> {
 
@@ -13,8 +31,26 @@ public class Initializers implements Iterable<Initializer> {
 
     public Initializers() {
         List<Initializer> initializers = new ArrayList<>();
+        initializers.add(ApplicationMetrics.getInstance());
         initializers.add(DataSourceRegistry.getInstance());
+        initializers.add(ReadReplicaRouter.getInstance());
+        initializers.add(AsyncDataSourceRegistry.getInstance());
         initializers.add(AppConfiguration.getInstance());
+        initializers.add(WorkerPoolRegistry.getInstance());
+        initializers.add(AdmissionController.getInstance());
+        initializers.add(TransactionRetryPolicy.getInstance());
+        initializers.add(StatementTimeoutPolicy.getInstance());
+        initializers.add(WriteCoalescer.getInstance());
+        initializers.add(ClassesForUserCache.getInstance());
+        initializers.add(ClassCache.getInstance());
+        initializers.add(AuthorizationCache.getInstance());
+        initializers.add(ClassCodeIndex.getInstance());
+        initializers.add(DemographicCache.getInstance());
+        initializers.add(VisibleContentIndex.getInstance());
+        initializers.add(InvalidationBus.getInstance());
+        initializers.add(EventOutbox.getInstance());
+        initializers.add(MemberCountStore.getInstance());
+        initializers.add(ReplyCodecRegistry.getInstance());
         internalIterator = initializers.iterator();
     }
 
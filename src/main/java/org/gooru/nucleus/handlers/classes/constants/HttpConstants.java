@@ -9,6 +9,7 @@ public final class HttpConstants {
     public static final String HEADER_CONTENT_LENGTH = "Content-Length";
     public static final String HEADER_CONTENT_TYPE = "Content-Type";
     public static final String HEADER_LOCATION = "Location";
+    public static final String HEADER_RETRY_AFTER = "Retry-After";
 
     public static final String CONTENT_TYPE_JSON = "application/json";
 
@@ -32,7 +33,9 @@ public final class HttpConstants {
         TIMED_OUT(408, "Request Timeout"),
         TOO_LARGE(413, "Request Entity Too Large"),
         TOO_MANY_REQUESTS(429, "Too Many Requests"),
-        ERROR(500, "Internal Server Error");
+        ERROR(500, "Internal Server Error"),
+        SERVICE_UNAVAILABLE(503, "Service Unavailable"),
+        GATEWAY_TIMEOUT(504, "Gateway Timeout");
 
         private final int code;
         private final String message;
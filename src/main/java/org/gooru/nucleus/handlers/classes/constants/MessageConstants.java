@@ -4,6 +4,10 @@ public final class MessageConstants {
 
     public static final String MSG_HEADER_OP = "mb.operation";
     public static final String MSG_HEADER_TOKEN = "session.token";
+    public static final String MSG_HEADER_DEADLINE = "mb.deadline";
+    public static final String MSG_HEADER_TIMEOUT = "mb.timeout";
+    // Set on receipt, in nanos of this JVM, to measure wait before processing
+    public static final String MSG_HEADER_RECEIVED_AT = "mb.received.at";
     public static final String MSG_OP_AUTH_WITH_PREFS = "auth.with.prefs";
     public static final String MSG_OP_STATUS = "mb.operation.status";
     public static final String MSG_KEY_PREFS = "prefs";
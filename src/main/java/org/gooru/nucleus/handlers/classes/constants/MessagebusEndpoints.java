@@ -7,6 +7,9 @@ public final class MessagebusEndpoints {
      */
     public static final String MBEP_CLASS = "org.gooru.nucleus.message.bus.class";
     public static final String MBEP_EVENT = "org.gooru.nucleus.message.bus.publisher.event";
+    public static final String MBEP_CLASS_METRICS = "org.gooru.nucleus.message.bus.class.metrics";
+    // Between nodes of this module only
+    public static final String MBEP_CLASS_INVALIDATION = "org.gooru.nucleus.message.bus.class.invalidation";
 
     private MessagebusEndpoints() {
         throw new AssertionError();
@@ -0,0 +1,13 @@
+package org.gooru.nucleus.handlers.classes.processors;
+
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+
+import io.vertx.core.Handler;
+
+/**
+ * Processor for the operations which are served without blocking, on the
+ * event loop. Response is handed over to specified handler.
+ */
+public interface AsyncProcessor {
+    void process(Handler<MessageResponse> responseHandler);
+}
@@ -0,0 +1,81 @@
+package org.gooru.nucleus.handlers.classes.processors;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.MultiMap;
+
+/**
+ * Helper for the request deadline carried in message headers. Caller may send
+ * either an absolute deadline (epoch millis) or a relative timeout (millis).
+ * The relative timeout is converted to absolute deadline when message is
+ * received, so that the time spent in queues is accounted for.
+ * <p>
+ * A deadline of zero means that request does not have any deadline.
+ */
+public final class DeadlineHelper {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeadlineHelper.class);
+    public static final long NO_DEADLINE = 0L;
+    private static final AtomicLong EXPIRED_COUNT = new AtomicLong();
+
+    private DeadlineHelper() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Convert the relative timeout header, if present, to absolute deadline
+     * header. Should be called as soon as the message is received.
+     */
+    public static void normalize(MultiMap headers) {
+        if (headers.get(MessageConstants.MSG_HEADER_DEADLINE) != null) {
+            return;
+        }
+        long timeout = parse(headers.get(MessageConstants.MSG_HEADER_TIMEOUT));
+        if (timeout > 0) {
+            headers.set(MessageConstants.MSG_HEADER_DEADLINE, String.valueOf(System.currentTimeMillis() + timeout));
+        }
+    }
+
+    public static long deadline(MultiMap headers) {
+        long deadline = parse(headers.get(MessageConstants.MSG_HEADER_DEADLINE));
+        return deadline > 0 ? deadline : NO_DEADLINE;
+    }
+
+    public static boolean isExpired(long deadline) {
+        return deadline != NO_DEADLINE && System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * @return millis left before deadline, or -1 if there is no deadline
+     */
+    public static long remainingMillis(long deadline) {
+        if (deadline == NO_DEADLINE) {
+            return -1;
+        }
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    public static void recordExpired(String stage) {
+        long count = EXPIRED_COUNT.incrementAndGet();
+        LOGGER.warn("Request deadline expired before '{}', skipping. Expired so far: '{}'", stage, count);
+    }
+
+    public static long expiredCount() {
+        return EXPIRED_COUNT.get();
+    }
+
+    private static long parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return NO_DEADLINE;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid deadline value '{}' in header, ignoring", value);
+            return NO_DEADLINE;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.gooru.nucleus.handlers.classes.processors;
 
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.ApplicationMetrics;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.repositories.RepoBuilder;
 import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
@@ -10,10 +11,11 @@ import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFa
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.vertx.core.Handler;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.json.JsonObject;
 
-class MessageProcessor implements Processor {
+class MessageProcessor implements Processor, AsyncProcessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Processor.class);
     private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("messages");
@@ -21,6 +23,9 @@ class MessageProcessor implements Processor {
     private String userId;
     private JsonObject prefs;
     private JsonObject request;
+    private long deadline;
+    private String sessionToken;
+    private String op;
 
     public MessageProcessor(Message<Object> message) {
         this.message = message;
@@ -37,7 +42,14 @@ class MessageProcessor implements Processor {
                 return validateResult.result();
             }
 
+            // Do not bother if caller has already given up
+            if (DeadlineHelper.isExpired(deadline)) {
+                DeadlineHelper.recordExpired("processing");
+                return MessageResponseFactory.createTimedOutResponse(RESOURCE_BUNDLE.getString("request.timed.out"));
+            }
+
             final String msgOp = message.headers().get(MessageConstants.MSG_HEADER_OP);
+            recordQueueWait(msgOp);
             switch (msgOp) {
             case MessageConstants.MSG_OP_CLASS_CREATE:
                 result = processClassCreate();
@@ -96,6 +108,59 @@ class MessageProcessor implements Processor {
         } catch (Throwable e) {
             LOGGER.error("Unhandled exception in processing", e);
             return MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("unexpected.error"));
+        } finally {
+            ApplicationMetrics.getInstance().clearCurrentOp();
+        }
+    }
+
+    /*
+     * Time spent by the message waiting for worker, and marking this thread
+     * as working on the op so that later phases are attributed to it
+     */
+    private void recordQueueWait(String msgOp) {
+        ApplicationMetrics metrics = ApplicationMetrics.getInstance();
+        metrics.setCurrentOp(msgOp);
+        String receivedAt = message.headers().get(MessageConstants.MSG_HEADER_RECEIVED_AT);
+        if (receivedAt != null) {
+            metrics.recordPhase(msgOp, ApplicationMetrics.PHASE_QUEUE, Long.parseLong(receivedAt));
+        }
+    }
+
+    @Override
+    public void process(Handler<MessageResponse> responseHandler) {
+        try {
+            ExecutionResult<MessageResponse> validateResult = validateAndInitialize();
+            if (validateResult.isCompleted()) {
+                responseHandler.handle(validateResult.result());
+                return;
+            }
+            if (DeadlineHelper.isExpired(deadline)) {
+                DeadlineHelper.recordExpired("processing");
+                responseHandler.handle(
+                    MessageResponseFactory.createTimedOutResponse(RESOURCE_BUNDLE.getString("request.timed.out")));
+                return;
+            }
+
+            final String msgOp = message.headers().get(MessageConstants.MSG_HEADER_OP);
+            ProcessorContext context = createContext();
+            if (!ProcessorContextHelper.validateContext(context)) {
+                responseHandler.handle(
+                    MessageResponseFactory.createInvalidRequestResponse(RESOURCE_BUNDLE.getString("invalid.class")));
+                return;
+            }
+            switch (msgOp) {
+            case MessageConstants.MSG_OP_CLASS_GET:
+                RepoBuilder.buildAsyncClassRepo(context).fetchClass(responseHandler);
+                break;
+            default:
+                LOGGER.error("Operation '{}' can't be processed asynchronously", msgOp);
+                responseHandler.handle(MessageResponseFactory
+                    .createInvalidRequestResponse(RESOURCE_BUNDLE.getString("invalid.operation")));
+            }
+        } catch (Throwable e) {
+            LOGGER.error("Unhandled exception in processing", e);
+            responseHandler.handle(
+                MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("unexpected.error")));
         }
     }
 
@@ -231,7 +296,8 @@ class MessageProcessor implements Processor {
     private ProcessorContext createContext() {
         String classId = message.headers().get(MessageConstants.CLASS_ID);
         String classCode = message.headers().get(MessageConstants.CLASS_CODE);
-        return new ProcessorContext.ProcessorContextBuilder(userId, prefs, request, classId, classCode).build();
+        return new ProcessorContext.ProcessorContextBuilder(userId, prefs, request, classId, classCode)
+            .setDeadline(deadline).setSessionToken(sessionToken).setOp(op).build();
     }
 
     private ProcessorContext createContextWithCourse() {
@@ -239,7 +305,7 @@ class MessageProcessor implements Processor {
         String courseId = message.headers().get(MessageConstants.COURSE_ID);
         String classCode = message.headers().get(MessageConstants.CLASS_CODE);
         return new ProcessorContext.ProcessorContextBuilder(userId, prefs, request, classId, classCode)
-            .setCourseId(courseId).build();
+            .setCourseId(courseId).setDeadline(deadline).setSessionToken(sessionToken).setOp(op).build();
 
     }
 
@@ -247,14 +313,14 @@ class MessageProcessor implements Processor {
         String classId = message.headers().get(MessageConstants.CLASS_ID);
         String studentId = message.headers().get(MessageConstants.USER_ID);
         return new ProcessorContext.ProcessorContextBuilder(userId, prefs, request, classId, null)
-            .setStudentId(studentId).build();
+            .setStudentId(studentId).setDeadline(deadline).setSessionToken(sessionToken).setOp(op).build();
     }
 
     private ProcessorContext createContextWithStudentEmail() {
         String classId = message.headers().get(MessageConstants.CLASS_ID);
         String studentEmail = message.headers().get(MessageConstants.EMAIL);
         return new ProcessorContext.ProcessorContextBuilder(userId, prefs, request, classId, null)
-            .setStudentEmail(studentEmail).build();
+            .setStudentEmail(studentEmail).setDeadline(deadline).setSessionToken(sessionToken).setOp(op).build();
     }
 
     private ExecutionResult<MessageResponse> validateAndInitialize() {
@@ -274,6 +340,9 @@ class MessageProcessor implements Processor {
         }
         prefs = ((JsonObject) message.body()).getJsonObject(MessageConstants.MSG_KEY_PREFS);
         request = ((JsonObject) message.body()).getJsonObject(MessageConstants.MSG_HTTP_BODY);
+        deadline = DeadlineHelper.deadline(message.headers());
+        sessionToken = ((JsonObject) message.body()).getString(MessageConstants.MSG_HEADER_TOKEN);
+        op = message.headers().get(MessageConstants.MSG_HEADER_OP);
 
         if (prefs == null || prefs.isEmpty()) {
             LOGGER.error("Invalid preferences obtained, probably not authorized properly");
@@ -15,9 +15,12 @@ public final class ProcessorContext {
     private final String classCode;
     private final String studentId;
     private final String studentEmail;
+    private final long deadline;
+    private final String sessionToken;
+    private final String op;
 
     private ProcessorContext(String userId, JsonObject prefs, JsonObject request, String classId, String courseId,
-        String classCode, String studentId, String studentEmail) {
+        String classCode, String studentId, String studentEmail, long deadline, String sessionToken, String op) {
         if (prefs == null || userId == null || prefs.isEmpty()) {
             throw new IllegalStateException("Processor Context creation failed because of invalid values");
         }
@@ -29,6 +32,9 @@ public final class ProcessorContext {
         this.classCode = classCode;
         this.studentEmail = studentEmail;
         this.studentId = studentId;
+        this.deadline = deadline;
+        this.sessionToken = sessionToken;
+        this.op = op;
     }
 
     public String userId() {
@@ -63,6 +69,18 @@ public final class ProcessorContext {
         return this.studentEmail;
     }
 
+    public long deadline() {
+        return this.deadline;
+    }
+
+    public String sessionToken() {
+        return this.sessionToken;
+    }
+
+    public String op() {
+        return this.op;
+    }
+
     public static class ProcessorContextBuilder {
         private final String userId;
         private final JsonObject prefs;
@@ -72,6 +90,9 @@ public final class ProcessorContext {
         private String studentId;
         private String studentEmail;
         private final String classCode;
+        private long deadline = DeadlineHelper.NO_DEADLINE;
+        private String sessionToken;
+        private String op;
         private boolean built = false;
 
         ProcessorContextBuilder(String userId, JsonObject prefs, JsonObject request, String classId, String classCode) {
@@ -109,13 +130,28 @@ public final class ProcessorContext {
             return this;
         }
 
+        ProcessorContextBuilder setDeadline(long deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        ProcessorContextBuilder setSessionToken(String sessionToken) {
+            this.sessionToken = sessionToken;
+            return this;
+        }
+
+        ProcessorContextBuilder setOp(String op) {
+            this.op = op;
+            return this;
+        }
+
         ProcessorContext build() {
             if (this.built) {
                 throw new IllegalStateException("Tried to build again");
             } else {
                 this.built = true;
                 return new ProcessorContext(userId, prefs, request, classId, courseId, classCode, studentId,
-                    studentEmail);
+                    studentEmail, deadline, sessionToken, op);
             }
         }
     }
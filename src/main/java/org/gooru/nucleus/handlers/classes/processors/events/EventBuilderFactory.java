@@ -1,5 +1,12 @@
 package org.gooru.nucleus.handlers.classes.processors.events;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
@@ -18,6 +25,7 @@ public final class EventBuilderFactory {
     private static final String EVT_CLASS_COLLABORATOR_UPDATE = "event.class.collaborator.join";
     private static final String EVT_CLASS_COURSE_ASSIGNED = "event.class.course.assigned";
     private static final String EVT_CLASS_CONTENT_VISIBLE = "event.class.content.visible";
+    private static final String EVT_BATCH = "event.batch";
     private static final String EVENT_NAME = "event.name";
     private static final String EVENT_BODY = "event.body";
     private static final String CLASS_ID = "id";
@@ -25,6 +33,13 @@ public final class EventBuilderFactory {
     private static final String COURSE_ID = "courseId";
     private static final String INVITEES = "invitees";
     private static final String EMAIL = "email";
+    private static final String EVENTS = "events";
+    private static final String COLLABORATORS_ADDED = "collaborators.added";
+    private static final List<String> VISIBLE_CONTENT_KEYS = Arrays.asList("assessments", "collections");
+    // Events of the writes which change the class row itself
+    private static final Set<String> CLASS_CHANGE_EVENTS =
+        Collections.unmodifiableSet(new HashSet<>(Arrays.asList(EVT_CLASS_UPDATE, EVT_CLASS_DELETE,
+            EVT_CLASS_COLLABORATOR_UPDATE, EVT_CLASS_COURSE_ASSIGNED, EVT_CLASS_CONTENT_VISIBLE)));
 
     private EventBuilderFactory() {
         throw new AssertionError();
@@ -75,6 +90,67 @@ public final class EventBuilderFactory {
             new JsonObject().put(CLASS_ID, classId).put(STUDENT_ID, studentId));
     }
 
+    public static String getEventName(JsonObject event) {
+        return event.getString(EVENT_NAME);
+    }
+
+    public static String getClassId(JsonObject event) {
+        JsonObject body = event.getJsonObject(EVENT_BODY);
+        return body != null ? body.getString(CLASS_ID) : null;
+    }
+
+    public static boolean isClassChangeEvent(JsonObject event) {
+        return CLASS_CHANGE_EVENTS.contains(getEventName(event));
+    }
+
+    /*
+     * Users who got associated with the class by the change which produced
+     * the event, i.e. the joining student or newly added collaborators
+     */
+    public static Set<String> getAssociatedUserIds(JsonObject event) {
+        Set<String> userIds = new HashSet<>();
+        JsonObject body = event.getJsonObject(EVENT_BODY);
+        if (body != null) {
+            String studentId = body.getString(STUDENT_ID);
+            if (studentId != null) {
+                userIds.add(studentId);
+            }
+            Object added = body.getValue(COLLABORATORS_ADDED);
+            if (added instanceof JsonArray) {
+                ((JsonArray) added).forEach(userId -> userIds.add(String.valueOf(userId)));
+            }
+        }
+        return userIds;
+    }
+
+    /*
+     * Ids of the content marked visible, if event is of content visibility,
+     * else null
+     */
+    public static List<String> getVisibleContentIds(JsonObject event) {
+        JsonObject body = event.getJsonObject(EVENT_BODY);
+        if (!EVT_CLASS_CONTENT_VISIBLE.equals(getEventName(event)) || body == null) {
+            return null;
+        }
+        List<String> contentIds = new ArrayList<>();
+        for (String key : VISIBLE_CONTENT_KEYS) {
+            Object contents = body.getValue(key);
+            if (contents instanceof JsonArray) {
+                ((JsonArray) contents).forEach(contentId -> contentIds.add(String.valueOf(contentId)));
+            }
+        }
+        return contentIds;
+    }
+
+    /*
+     * Envelope for events which are published together. Each event retains
+     * its own attributes, including session token, so that consumers could
+     * process them as if they were received one by one.
+     */
+    public static JsonObject buildBatchEvent(JsonArray events) {
+        return new JsonObject().put(EVENT_NAME, EVT_BATCH).put(EVENT_BODY, new JsonObject().put(EVENTS, events));
+    }
+
     // TODO: Decide on how to pass the content's structure
     public static EventBuilder getContentVisibleEventBuilder(String classId, JsonObject visibleContents) {
         return () -> new JsonObject().put(EVENT_NAME, EVT_CLASS_CONTENT_VISIBLE).put(EVENT_BODY,
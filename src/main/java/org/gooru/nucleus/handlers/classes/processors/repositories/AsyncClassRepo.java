@@ -0,0 +1,19 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories;
+
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+
+import io.vertx.core.Handler;
+
+/**
+ * Non blocking counterpart of {@link ClassRepo} for the hot read operations.
+ * These are meant to be called on event loop and the response is handed over
+ * to specified handler once available.
+ * <p>
+ * Only the reads which need no authorization, caches or demographics beyond
+ * what can be shared with the DB handlers are served here, so that response
+ * does not depend on which path served it.
+ */
+public interface AsyncClassRepo {
+
+    void fetchClass(Handler<MessageResponse> responseHandler);
+}
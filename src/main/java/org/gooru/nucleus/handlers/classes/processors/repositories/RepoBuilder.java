@@ -2,6 +2,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories;
 
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.AJClassRepoBuilder;
+import org.gooru.nucleus.handlers.classes.processors.repositories.pgasync.PGAsyncClassRepoBuilder;
 
 /**
  * Created by ashish on 28/1/16.
@@ -15,4 +16,8 @@ public final class RepoBuilder {
     public static ClassRepo buildClassRepo(ProcessorContext context) {
         return AJClassRepoBuilder.buildClassRepo(context);
     }
+
+    public static AsyncClassRepo buildAsyncClassRepo(ProcessorContext context) {
+        return PGAsyncClassRepoBuilder.buildAsyncClassRepo(context);
+    }
 }
@@ -18,81 +18,91 @@ class AJClassRepo implements ClassRepo {
 
     @Override
     public MessageResponse createClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildCreateClassHandler(context));
+        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildCreateClassHandler(context), context);
     }
 
     @Override
     public MessageResponse updateClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildUpdateClassHandler(context));
+        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildUpdateClassHandler(context), context);
     }
 
     @Override
     public MessageResponse fetchClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildFetchClassHandler(context));
+        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildFetchClassHandler(context), context);
     }
 
     @Override
     public MessageResponse fetchClassMembers() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildFetchClassMembersHandler(context));
+        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildFetchClassMembersHandler(context), context);
     }
 
     @Override
     public MessageResponse fetchClassesForCourse() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildFetchClassesForCourseHandler(context));
+        return TransactionExecutor
+            .executeTransaction(DBHandlerBuilder.buildFetchClassesForCourseHandler(context), context);
     }
 
     @Override
     public MessageResponse fetchClassesForUser() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildFetchClassesForUserHandler(context));
+        return TransactionExecutor
+            .executeTransaction(DBHandlerBuilder.buildFetchClassesForUserHandler(context), context);
     }
 
     @Override
     public MessageResponse joinClassByStudent() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildJoinClassByStudentHandler(context));
+        // Joins to same class are coalesced, as class code is used by whole
+        // class at once
+        return TransactionExecutor.executeCoalesced(DBHandlerBuilder.buildJoinClassByStudentHandler(context), context,
+            context.classCode(), DBHandlerBuilder::buildJoinClassByStudentBatchHandler);
     }
 
     @Override
     public MessageResponse inviteStudentToClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildInviteStudentToClassHandler(context));
+        return TransactionExecutor
+            .executeTransaction(DBHandlerBuilder.buildInviteStudentToClassHandler(context), context);
     }
 
     @Override
     public MessageResponse deleteClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildDeleteClassHandler(context));
+        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildDeleteClassHandler(context), context);
     }
 
     @Override
     public MessageResponse associateCourseWithClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildAssociateCourseWithClassHandler(context));
+        return TransactionExecutor
+            .executeTransaction(DBHandlerBuilder.buildAssociateCourseWithClassHandler(context), context);
     }
 
     @Override
     public MessageResponse setContentVisibility() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildSetContentVisibilityHandler(context));
+        return TransactionExecutor
+            .executeTransaction(DBHandlerBuilder.buildSetContentVisibilityHandler(context), context);
     }
 
     @Override
     public MessageResponse updateCollaboratorForClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildUpdateCollaboratorForClassHandler(context));
+        return TransactionExecutor
+            .executeTransaction(DBHandlerBuilder.buildUpdateCollaboratorForClassHandler(context), context);
     }
 
     @Override
     public MessageResponse removeInviteForStudentFromClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildRemoveInviteHandler(context));
+        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildRemoveInviteHandler(context), context);
     }
 
     @Override
     public MessageResponse removeStudentFromClass() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildRemoveStudentHandler(context));
+        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildRemoveStudentHandler(context), context);
     }
 
     @Override
     public MessageResponse getVisibleContentStats() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildGetVisibleContentStatsHandler(context));
+        return TransactionExecutor
+            .executeTransaction(DBHandlerBuilder.buildGetVisibleContentStatsHandler(context), context);
     }
 
     @Override
     public MessageResponse getVisibleContent() {
-        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildGetVisibleContentHandler(context));
+        return TransactionExecutor.executeTransaction(DBHandlerBuilder.buildGetVisibleContentHandler(context), context);
     }
 }
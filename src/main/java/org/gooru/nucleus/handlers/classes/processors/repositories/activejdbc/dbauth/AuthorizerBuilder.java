@@ -10,6 +10,9 @@ import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
  */
 public final class AuthorizerBuilder {
 
+    // Role of class members, i.e. teacher, collaborator or student, for cached decisions
+    private static final String ROLE_MEMBER = "member";
+
     private AuthorizerBuilder() {
         throw new AssertionError();
     }
@@ -41,15 +44,22 @@ public final class AuthorizerBuilder {
         return model -> new ExecutionResult<>(null, ExecutionResult.ExecutionStatus.CONTINUE_PROCESSING);
     }
 
-    public static Authorizer<AJEntityClass> buildFetchClassMembersAuthorizer(ProcessorContext context) {
+    /**
+     * @param authorizationVersion Version of authorization cache taken before
+     *        the class was read
+     */
+    public static Authorizer<AJEntityClass> buildFetchClassMembersAuthorizer(ProcessorContext context,
+        long authorizationVersion) {
         // User should be a member (which is either teacher or collaborator or
         // student of that class.
-        return new ClassMemberAuthorizer(context);
+        return new CachedDecisionAuthorizer(context, ROLE_MEMBER, new ClassMemberAuthorizer(context),
+            authorizationVersion);
     }
 
     public static Authorizer<AJEntityClass> buildClassMembersAuthorizer(ProcessorContext context) {
         // User should be a member (which is either teacher or collaborator or
-        // student of that class.
+        // student of that class. Used for joins by code, which do not have
+        // class id that decision could be cached for
         return new ClassMemberAuthorizer(context);
     }
 
@@ -88,8 +98,14 @@ public final class AuthorizerBuilder {
         return new ClassOwnerOrCollaboratorAuthorizer(context);
     }
 
-    public static Authorizer<AJEntityClass> buildVisibleContentAuthorizer(ProcessorContext context) {
-        return new ClassMemberAuthorizer(context);
+    /**
+     * @param authorizationVersion Version of authorization cache taken before
+     *        the class was read
+     */
+    public static Authorizer<AJEntityClass> buildVisibleContentAuthorizer(ProcessorContext context,
+        long authorizationVersion) {
+        return new CachedDecisionAuthorizer(context, ROLE_MEMBER, new ClassMemberAuthorizer(context),
+            authorizationVersion);
     }
 
     public static Authorizer<AJEntityClass> buildVisibleContentStatsAuthorizer(ProcessorContext context) {
@@ -0,0 +1,51 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbauth;
+
+import org.gooru.nucleus.handlers.classes.app.components.AuthorizationCache;
+import org.gooru.nucleus.handlers.classes.app.components.ReadReplicaRouter;
+import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
+import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+
+/**
+ * Authorizer which looks up authorization cache for the user, class and role
+ * before delegating, and records the decision when delegate allows. Requests
+ * which are not for a class id, e.g. join by code, always go to delegate.
+ * Decision made on reads from a replica is not recorded, as replica may not
+ * have applied a removal whose invalidation has already happened.
+ * <p>
+ * Class the decision is made on could come from class cache, so version of
+ * authorization cache is to be taken by caller before reading the class;
+ * decision is then not recorded if there was an invalidation since.
+ */
+class CachedDecisionAuthorizer implements Authorizer<AJEntityClass> {
+    private final ProcessorContext context;
+    private final String role;
+    private final Authorizer<AJEntityClass> delegate;
+    private final long cacheVersion;
+
+    CachedDecisionAuthorizer(ProcessorContext context, String role, Authorizer<AJEntityClass> delegate,
+        long cacheVersion) {
+        this.context = context;
+        this.role = role;
+        this.delegate = delegate;
+        this.cacheVersion = cacheVersion;
+    }
+
+    @Override
+    public ExecutionResult<MessageResponse> authorize(AJEntityClass model) {
+        AuthorizationCache cache = AuthorizationCache.getInstance();
+        String classId = context.classId();
+        if (classId == null || !cache.isEnabled()) {
+            return delegate.authorize(model);
+        }
+        if (cache.isAllowed(context.userId(), classId, role)) {
+            return new ExecutionResult<>(null, ExecutionResult.ExecutionStatus.CONTINUE_PROCESSING);
+        }
+        ExecutionResult<MessageResponse> result = delegate.authorize(model);
+        if (result.continueProcessing() && !ReadReplicaRouter.getInstance().isReadingReplica()) {
+            cache.putAllowed(context.userId(), classId, role, cacheVersion);
+        }
+        return result;
+    }
+}
@@ -2,6 +2,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
 import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
@@ -38,6 +39,9 @@ class CourseOwnerAuthorizer implements Authorizer<AJEntityClass> {
                     .createInvalidRequestResponse(RESOURCE_BUNDLE.getString("course.not.found.or.not.available")),
                 ExecutionResult.ExecutionStatus.FAILED);
         } catch (DBException e) {
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                throw e;
+            }
             LOGGER.error("Error querying course '{}' availability for associating in class '{}'", context.courseId(),
                 context.classId(), e);
             return new ExecutionResult<>(
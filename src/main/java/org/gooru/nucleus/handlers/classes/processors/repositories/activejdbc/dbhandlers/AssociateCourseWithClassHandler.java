@@ -114,4 +114,9 @@ class AssociateCourseWithClassHandler implements DBHandler {
         return false;
     }
 
+    @Override
+    public boolean handlerRetryable() {
+        return true;
+    }
+
 }
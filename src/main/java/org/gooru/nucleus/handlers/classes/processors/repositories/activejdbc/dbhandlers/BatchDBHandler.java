@@ -0,0 +1,26 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbhandlers;
+
+import java.util.List;
+
+import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+
+/**
+ * Handler for a batch of coalesced requests of same kind, whose sanity has
+ * already been checked by their own handlers.
+ */
+public interface BatchDBHandler {
+
+    /*
+     * Validate and execute all the requests in current transaction. Result of
+     * each request is returned in the order of requests; failure of some does
+     * not stop the changes of others from being committed.
+     */
+    List<ExecutionResult<MessageResponse>> executeRequests();
+
+    /*
+     * Same as for DBHandler, the handler needs to set up all of its state
+     * afresh in execution if it is retryable
+     */
+    boolean handlerRetryable();
+}
@@ -0,0 +1,72 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbhandlers;
+
+import java.util.Map;
+
+import org.gooru.nucleus.handlers.classes.app.components.ClassCache;
+import org.gooru.nucleus.handlers.classes.app.components.ClassCodeIndex;
+import org.gooru.nucleus.handlers.classes.app.components.ReadReplicaRouter;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
+import org.javalite.activejdbc.LazyList;
+
+/**
+ * Finds class for handlers which only read it, from class cache when it is
+ * there, and by code via class code index. Handlers which update the class
+ * need to read it from DB instead, as model from cache is not meant to be
+ * saved.
+ * <p>
+ * Class read from a replica is not put in class cache, so that cached class,
+ * which authorization decisions are made on, is as of primary.
+ */
+final class ClassFinder {
+
+    private ClassFinder() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @return class which is not deleted, or null
+     */
+    static AJEntityClass findClass(String classId) {
+        ClassCache cache = ClassCache.getInstance();
+        Map<String, Object> snapshot = cache.get(classId);
+        if (snapshot != null) {
+            return AJEntityClass.fromSnapshot(snapshot);
+        }
+        long version = cache.version();
+        LazyList<AJEntityClass> classes = AJEntityClass.where(AJEntityClass.FETCH_QUERY_FILTER, classId);
+        if (classes.isEmpty()) {
+            return null;
+        }
+        AJEntityClass entityClass = classes.get(0);
+        if (cache.isEnabled() && !ReadReplicaRouter.getInstance().isReadingReplica()) {
+            cache.put(classId, version, entityClass.toMap());
+        }
+        return entityClass;
+    }
+
+    /**
+     * @return class with the code which is not deleted, or null
+     */
+    static AJEntityClass findClassByCode(String classCode) {
+        ClassCodeIndex index = ClassCodeIndex.getInstance();
+        if (!index.mightExist(classCode)) {
+            return null;
+        }
+        String classId = index.getClassId(classCode);
+        if (classId != null) {
+            AJEntityClass entityClass = findClass(classId);
+            if (entityClass == null) {
+                // Code stays with the class even if it is deleted
+                index.removeClassId(classCode);
+            }
+            return entityClass;
+        }
+        LazyList<AJEntityClass> classes = AJEntityClass.where(AJEntityClass.FETCH_VIA_CODE_FILTER, classCode);
+        if (classes.isEmpty()) {
+            return null;
+        }
+        AJEntityClass entityClass = classes.get(0);
+        index.putClassId(classCode, entityClass.getId().toString());
+        return entityClass;
+    }
+}
@@ -2,6 +2,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
@@ -131,6 +132,9 @@ public class ContentVisibilityHandler implements DBHandler {
                     EventBuilderFactory.getContentVisibleEventBuilder(context.classId(), context.request())),
                 ExecutionResult.ExecutionStatus.SUCCESSFUL);
         } catch (DBException e) {
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                throw e;
+            }
             LOGGER.error("Unable to mark content visible for class {}", this.context.classId(), e);
             throw e;
         }
@@ -4,6 +4,9 @@ import java.util.Map;
 import java.util.ResourceBundle;
 
 import org.gooru.nucleus.handlers.classes.app.components.AppConfiguration;
+import org.gooru.nucleus.handlers.classes.app.components.ClassCodeIndex;
+import org.gooru.nucleus.handlers.classes.app.components.InvalidationBus;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
@@ -124,6 +127,8 @@ class CreateClassHandler implements DBHandler {
             if (checkUniqueness(resultCode)) {
                 LOGGER.info("Class code generation took '{}' retries", retries);
                 this.entityClass.set(AJEntityClass.CODE, resultCode);
+                ClassCodeIndex.getInstance().codeIssued(resultCode);
+                InvalidationBus.getInstance().publishCodeIssued(resultCode);
                 return true;
             }
         }
@@ -132,10 +137,17 @@ class CreateClassHandler implements DBHandler {
     }
 
     private boolean checkUniqueness(String resultCode) {
+        // Code which is not in index has not been issued yet
+        if (!ClassCodeIndex.getInstance().mightBeIssued(resultCode)) {
+            return true;
+        }
         try {
             Long count = AJEntityClass.count(AJEntityClass.CODE_UNIQUENESS_QUERY, resultCode);
             return count == 0;
         } catch (DBException e) {
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                throw e;
+            }
             // Since this is read only query, there may not be an impact on the
             // connection state (like in integrity constraints violations). So
             // we
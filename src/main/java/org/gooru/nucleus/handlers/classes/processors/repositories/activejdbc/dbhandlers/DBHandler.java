@@ -14,4 +14,14 @@ public interface DBHandler {
     ExecutionResult<MessageResponse> executeRequest();
 
     boolean handlerReadOnly();
+
+    /*
+     * Whether validate and execute could be run again, in a new transaction,
+     * if transaction fails because of serialization failure or deadlock. The
+     * handler needs to set up all of its state afresh in validation for this,
+     * so handlers opt in.
+     */
+    default boolean handlerRetryable() {
+        return false;
+    }
 }
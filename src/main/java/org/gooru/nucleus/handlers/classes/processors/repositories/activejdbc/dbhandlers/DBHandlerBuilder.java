@@ -1,5 +1,8 @@
 package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbhandlers;
 
+import java.util.List;
+
+import org.gooru.nucleus.handlers.classes.app.components.AppConfiguration;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 
 /**
@@ -36,9 +39,16 @@ public final class DBHandlerBuilder {
     }
 
     public static DBHandler buildJoinClassByStudentHandler(ProcessorContext context) {
+        if (AppConfiguration.getInstance().isUpsertJoinMode()) {
+            return new UpsertJoinClassByStudentHandler(context);
+        }
         return new JoinClassByStudentHandler(context);
     }
 
+    public static BatchDBHandler buildJoinClassByStudentBatchHandler(List<ProcessorContext> contexts) {
+        return new JoinClassByStudentBatchHandler(contexts);
+    }
+
     public static DBHandler buildInviteStudentToClassHandler(ProcessorContext context) {
         return new InviteStudentToClassHandler(context);
     }
@@ -3,6 +3,8 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 import java.util.Map;
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.MemberCountStore;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
@@ -96,11 +98,15 @@ class DeleteClassHandler implements DBHandler {
         }
         try {
             Base.exec(AJClassMember.DELETE_MEMBERSHIP_FOR_CLASS_QUERY, context.classId());
+            MemberCountStore.getInstance().remove(context.classId());
             return new ExecutionResult<>(
                 MessageResponseFactory.createNoContentResponse(RESOURCE_BUNDLE.getString("deleted"),
                     EventBuilderFactory.getDeleteClassEventBuilder(context.classId())),
                 ExecutionResult.ExecutionStatus.SUCCESSFUL);
         } catch (DBException dbe) {
+            if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                throw dbe;
+            }
             LOGGER.warn("Unable to delete membership details for class '{}' delete request", context.classId(), dbe);
             return new ExecutionResult<>(MessageResponseFactory.createInternalErrorResponse(
                 RESOURCE_BUNDLE.getString("membership.delete.failure")), ExecutionResult.ExecutionStatus.FAILED);
@@ -0,0 +1,64 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbhandlers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.gooru.nucleus.handlers.classes.app.components.DemographicCache;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.Utils;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJUserDemographic;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.formatter.JsonFormatterBuilder;
+import org.javalite.activejdbc.LazyList;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Finds demographic summaries of users from demographic cache, loading the
+ * ones which are not there with one query.
+ */
+final class DemographicFinder {
+
+    private DemographicFinder() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @return summaries of the users which have demographics, in order of
+     *         user ids, without duplicates
+     */
+    static JsonArray findSummaries(Collection<String> userIds) {
+        Set<String> uniqueUserIds = new LinkedHashSet<>(userIds);
+        DemographicCache cache = DemographicCache.getInstance();
+        Map<String, JsonObject> summaries = cache.getAll(uniqueUserIds);
+        List<String> missingUserIds = new ArrayList<>();
+        for (String userId : uniqueUserIds) {
+            if (!summaries.containsKey(userId)) {
+                missingUserIds.add(userId);
+            }
+        }
+        if (!missingUserIds.isEmpty()) {
+            LazyList<AJUserDemographic> demographics = AJUserDemographic.findBySQL(AJUserDemographic.GET_SUMMARY_QUERY,
+                Utils.convertListToPostgresArrayStringRepresentation(missingUserIds));
+            JsonArray loaded = new JsonArray(JsonFormatterBuilder
+                .buildSimpleJsonFormatter(false, AJUserDemographic.GET_SUMMARY_QUERY_FIELD_LIST).toJson(demographics));
+            for (int i = 0; i < loaded.size(); i++) {
+                JsonObject summary = loaded.getJsonObject(i);
+                String userId = summary.getString(AJUserDemographic.ID);
+                summaries.put(userId, summary);
+                cache.put(userId, summary);
+            }
+        }
+        JsonArray result = new JsonArray();
+        for (String userId : uniqueUserIds) {
+            JsonObject summary = summaries.get(userId);
+            if (summary != null) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+}
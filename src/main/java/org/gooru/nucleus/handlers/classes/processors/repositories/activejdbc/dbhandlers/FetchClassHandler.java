@@ -2,6 +2,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbauth.AuthorizerBuilder;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJClassMember;
@@ -12,7 +13,6 @@ import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
 import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
 import org.javalite.activejdbc.Base;
 import org.javalite.activejdbc.DBException;
-import org.javalite.activejdbc.LazyList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,16 +53,18 @@ class FetchClassHandler implements DBHandler {
     @Override
     public ExecutionResult<MessageResponse> validateRequest() {
         try {
-            LazyList<AJEntityClass> classes = AJEntityClass.where(AJEntityClass.FETCH_QUERY_FILTER, context.classId());
-            if (classes.isEmpty()) {
+            this.entityClass = ClassFinder.findClass(context.classId());
+            if (this.entityClass == null) {
                 LOGGER.warn("Not able to find class '{}'", this.context.classId());
                 return new ExecutionResult<>(
                     MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")),
                     ExecutionResult.ExecutionStatus.FAILED);
             }
-            this.entityClass = classes.get(0);
             return AuthorizerBuilder.buildFetchClassAuthorizer(context).authorize(this.entityClass);
         } catch (DBException e) {
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                throw e;
+            }
             LOGGER.error("Not able to fetch class from DB", e);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -81,6 +83,9 @@ class FetchClassHandler implements DBHandler {
             return new ExecutionResult<>(MessageResponseFactory.createOkayResponse(response),
                 ExecutionResult.ExecutionStatus.SUCCESSFUL);
         } catch (DBException dbe) {
+            if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                throw dbe;
+            }
             LOGGER.warn("Unable to fetch membership count for class '{}'", context.classId(), dbe);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -4,14 +4,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.AuthorizationCache;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
-import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.Utils;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbauth.AuthorizerBuilder;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJClassMember;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
-import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJUserDemographic;
-import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.formatter.JsonFormatterBuilder;
 import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
 import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
 import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
@@ -63,16 +62,20 @@ class FetchClassMembersHandler implements DBHandler {
     @Override
     public ExecutionResult<MessageResponse> validateRequest() {
         try {
-            LazyList<AJEntityClass> classes = AJEntityClass.where(AJEntityClass.FETCH_QUERY_FILTER, context.classId());
-            if (classes.isEmpty()) {
+            long authorizationVersion = AuthorizationCache.getInstance().version();
+            this.entityClass = ClassFinder.findClass(context.classId());
+            if (this.entityClass == null) {
                 LOGGER.warn("Not able to find class '{}'", this.context.classId());
                 return new ExecutionResult<>(
                     MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")),
                     ExecutionResult.ExecutionStatus.FAILED);
             }
-            this.entityClass = classes.get(0);
-            return AuthorizerBuilder.buildFetchClassMembersAuthorizer(context).authorize(this.entityClass);
+            return AuthorizerBuilder.buildFetchClassMembersAuthorizer(context, authorizationVersion)
+                .authorize(this.entityClass);
         } catch (DBException e) {
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                throw e;
+            }
             LOGGER.error("Not able to fetch class from DB", e);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -99,13 +102,9 @@ class FetchClassMembersHandler implements DBHandler {
     }
 
     private void populateDemographics(List<String> memberIdList, JsonObject result) {
-        // Now resolve the demographic of members
-        LazyList<AJUserDemographic> demographics = AJUserDemographic.findBySQL(AJUserDemographic.GET_SUMMARY_QUERY,
-            Utils.convertListToPostgresArrayStringRepresentation(memberIdList));
-        // update that in the response
-        JsonArray userDemographics = new JsonArray(JsonFormatterBuilder
-            .buildSimpleJsonFormatter(false, AJUserDemographic.GET_SUMMARY_QUERY_FIELD_LIST).toJson(demographics));
-        result.put(RESPONSE_BUCKET_MEMBER_DETAILS, userDemographics);
+        // Now resolve the demographic of members and update that in the
+        // response
+        result.put(RESPONSE_BUCKET_MEMBER_DETAILS, DemographicFinder.findSummaries(memberIdList));
     }
 
     private void populateMembersInfo(JsonObject result, List<String> memberIdList, LazyList<AJClassMember> members) {
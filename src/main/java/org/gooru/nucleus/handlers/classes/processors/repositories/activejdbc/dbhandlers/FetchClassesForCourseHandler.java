@@ -2,6 +2,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbauth.AuthorizerBuilder;
@@ -66,6 +67,9 @@ class FetchClassesForCourseHandler implements DBHandler {
                 MessageResponseFactory.createOkayResponse(new JsonObject().put(RESPONSE_BUCKET_CLASSES, classesList)),
                 ExecutionResult.ExecutionStatus.SUCCESSFUL);
         } catch (DBException e) {
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                throw e;
+            }
             LOGGER.error("Not able to fetch class from DB", e);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -2,13 +2,16 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import org.gooru.nucleus.handlers.classes.app.components.ClassesForUserCache;
+import org.gooru.nucleus.handlers.classes.app.components.MemberCountStore;
+import org.gooru.nucleus.handlers.classes.app.components.ReadReplicaRouter;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.Utils;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbauth.AuthorizerBuilder;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJClassMember;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
-import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJUserDemographic;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.formatter.JsonFormatterBuilder;
 import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
 import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
@@ -20,9 +23,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 /**
  * Created by ashish on 8/2/16.
@@ -32,7 +37,9 @@ class FetchClassesForUserHandler implements DBHandler {
     private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("messages");
     private final ProcessorContext context;
     private final List<String> classIdList = new ArrayList<>();
+    private final List<String> teacherIdList = new ArrayList<>();
     private JsonArray memberClassIdArray;
+    private long cacheVersion;
     private static final String RESPONSE_BUCKET_OWNER = "owner";
     private static final String RESPONSE_BUCKET_COLLABORATOR = "collaborator";
     private static final String RESPONSE_BUCKET_MEMBER = "member";
@@ -53,6 +60,13 @@ class FetchClassesForUserHandler implements DBHandler {
                 MessageResponseFactory.createForbiddenResponse(RESOURCE_BUNDLE.getString("not.allowed")),
                 ExecutionResult.ExecutionStatus.FAILED);
         }
+        // Repeat views are served from cache without going to DB
+        JsonObject cached = ClassesForUserCache.getInstance().get(context.userId());
+        if (cached != null) {
+            return new ExecutionResult<>(MessageResponseFactory.createOkayResponse(cached),
+                ExecutionResult.ExecutionStatus.SUCCESSFUL);
+        }
+        cacheVersion = ClassesForUserCache.getInstance().version();
         return new ExecutionResult<>(null, ExecutionResult.ExecutionStatus.CONTINUE_PROCESSING);
     }
 
@@ -109,6 +123,9 @@ class FetchClassesForUserHandler implements DBHandler {
             result.put(RESPONSE_BUCKET_COLLABORATOR, collaboratedClassIds);
             return new ExecutionResult<>(null, ExecutionResult.ExecutionStatus.CONTINUE_PROCESSING);
         } catch (DBException dbe) {
+            if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                throw dbe;
+            }
             LOGGER.warn("Unable to fetch owned or collaborated classes for user '{}'", context.userId(), dbe);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -128,6 +145,9 @@ class FetchClassesForUserHandler implements DBHandler {
             result.put(RESPONSE_BUCKET_MEMBER, memberClassIdArray);
             return new ExecutionResult<>(null, ExecutionResult.ExecutionStatus.CONTINUE_PROCESSING);
         } catch (DBException dbe) {
+            if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                throw dbe;
+            }
             LOGGER.warn("Unable to fetch membership classes for user '{}'", context.userId(), dbe);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -138,12 +158,34 @@ class FetchClassesForUserHandler implements DBHandler {
     private ExecutionResult<MessageResponse> populateClassMemberCounts(JsonObject result) {
         try {
             JsonObject memberCount = new JsonObject();
-            List<Map> rs = Base.findAll(AJClassMember.FETCH_MEMBERSHIP_COUNT_FOR_CLASSES,
-                Utils.convertListToPostgresArrayStringRepresentation(classIdList));
-            rs.forEach(map -> memberCount.put(map.get("class_id").toString(), map.get("count")));
+            List<String> uncountedClassIds = classIdList;
+            if (MemberCountStore.getInstance().isEnabled()) {
+                // Classes without members are left out, as with aggregation
+                Map<String, Number> counts = MemberCountStore.getInstance()
+                    .fetchCounts(Utils.convertListToPostgresArrayStringRepresentation(classIdList));
+                counts.forEach((classId, count) -> {
+                    if (count.longValue() > 0) {
+                        memberCount.put(classId, count);
+                    }
+                });
+                uncountedClassIds = new ArrayList<>();
+                for (String classId : classIdList) {
+                    if (!counts.containsKey(classId)) {
+                        uncountedClassIds.add(classId);
+                    }
+                }
+            }
+            if (!uncountedClassIds.isEmpty()) {
+                List<Map> rs = Base.findAll(AJClassMember.FETCH_MEMBERSHIP_COUNT_FOR_CLASSES,
+                    Utils.convertListToPostgresArrayStringRepresentation(uncountedClassIds));
+                rs.forEach(map -> memberCount.put(map.get("class_id").toString(), map.get("count")));
+            }
             result.put(RESPONSE_BUCKET_MEMBER_COUNT, memberCount);
             return new ExecutionResult<>(null, ExecutionResult.ExecutionStatus.CONTINUE_PROCESSING);
         } catch (DBException dbe) {
+            if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                throw dbe;
+            }
             LOGGER.warn("Unable to fetch membership classes for user '{}'", context.userId(), dbe);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -154,6 +196,13 @@ class FetchClassesForUserHandler implements DBHandler {
     private ExecutionResult<MessageResponse> populateClassDetails(JsonObject result) {
         LazyList<AJEntityClass> classes = AJEntityClass.where(AJEntityClass.FETCH_MULTIPLE_QUERY_FILTER,
             Utils.convertListToPostgresArrayStringRepresentation(classIdList));
+        // Teachers of classes which user is member of, for teacher details
+        Set<String> memberClassIds = new HashSet<>(memberClassIdArray.getList());
+        for (AJEntityClass entityClass : classes) {
+            if (memberClassIds.contains(entityClass.getId().toString())) {
+                teacherIdList.add(entityClass.getString(AJEntityClass.CREATOR_ID));
+            }
+        }
         JsonArray classDetails = new JsonArray(
             JsonFormatterBuilder.buildSimpleJsonFormatter(false, AJEntityClass.FETCH_QUERY_FIELD_LIST).toJson(classes));
         result.put(RESPONSE_BUCKET_CLASSES, classDetails);
@@ -162,17 +211,18 @@ class FetchClassesForUserHandler implements DBHandler {
 
     private ExecutionResult<MessageResponse> populateTeacherDetails(JsonObject result) {
         try {
-            LazyList<AJUserDemographic> demographics =
-                AJUserDemographic.findBySQL(AJUserDemographic.FETCH_TEACHER_DETAILS_QUERY,
-                    Utils.convertListToPostgresArrayStringRepresentation(memberClassIdArray.getList()));
-            // update that in the response
-            JsonArray teacherDetails = new JsonArray(JsonFormatterBuilder
-                .buildSimpleJsonFormatter(false, AJUserDemographic.GET_SUMMARY_QUERY_FIELD_LIST).toJson(demographics));
-            result.put(RESPONSE_BUCKET_TEACHER_DETAILS, teacherDetails);
+            result.put(RESPONSE_BUCKET_TEACHER_DETAILS, DemographicFinder.findSummaries(teacherIdList));
+            // Replica may not have the writes which were invalidated already
+            if (!ReadReplicaRouter.getInstance().isReadingReplica()) {
+                ClassesForUserCache.getInstance().put(context.userId(), cacheVersion, result, classIdList);
+            }
             return new ExecutionResult<>(MessageResponseFactory.createOkayResponse(result),
                 ExecutionResult.ExecutionStatus.SUCCESSFUL);
 
         } catch (DBException dbe) {
+            if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                throw dbe;
+            }
             LOGGER.warn("Unable to fetch teacher details for classes for user '{}'", context.userId(), dbe);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
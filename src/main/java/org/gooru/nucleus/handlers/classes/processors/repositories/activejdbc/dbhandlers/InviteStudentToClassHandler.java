@@ -3,6 +3,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 import java.sql.PreparedStatement;
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
@@ -15,7 +16,6 @@ import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
 import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
 import org.javalite.activejdbc.Base;
 import org.javalite.activejdbc.DBException;
-import org.javalite.activejdbc.LazyList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,14 +72,13 @@ class InviteStudentToClassHandler implements DBHandler {
 
     @Override
     public ExecutionResult<MessageResponse> validateRequest() {
-        LazyList<AJEntityClass> classes = AJEntityClass.where(AJEntityClass.FETCH_QUERY_FILTER, context.classId());
-        if (classes.isEmpty()) {
+        AJEntityClass entityClass = ClassFinder.findClass(context.classId());
+        if (entityClass == null) {
             LOGGER.warn("Not able to find class '{}'", this.context.classId());
             return new ExecutionResult<>(
                 MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")),
                 ExecutionResult.ExecutionStatus.FAILED);
         }
-        AJEntityClass entityClass = classes.get(0);
         // Class should be of current version and Class should not be archived
         if (!entityClass.isCurrentVersion() || entityClass.isArchived()) {
             LOGGER.warn("Class '{}' is either archived or not of current version", context.classId());
@@ -119,6 +118,9 @@ class InviteStudentToClassHandler implements DBHandler {
                 ExecutionResult.ExecutionStatus.SUCCESSFUL);
 
         } catch (DBException dbe) {
+            if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                throw dbe;
+            }
             LOGGER.error("Error trying to save invitations", dbe);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -0,0 +1,184 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbhandlers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.gooru.nucleus.handlers.classes.app.components.MemberCountStore;
+import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
+import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
+import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.Utils;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbauth.AuthorizerBuilder;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJClassMember;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
+import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
+import org.javalite.activejdbc.Base;
+import org.javalite.activejdbc.LazyList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.json.JsonArray;
+
+/**
+ * Joins of students to same class, coalesced when class code is being used by
+ * lots of students at once. Class is looked up and memberships are fetched
+ * once for the batch, and memberships are written with one upsert. Each
+ * student gets the same response and event as from JoinClassByStudentHandler.
+ * <p>
+ * Whether student is already a member is answered from the class and the
+ * memberships fetched for the batch, rather than by member authorizer which
+ * would query for each student: teacher and co teachers are on the class,
+ * and a student who has joined already gets the joined response.
+ */
+class JoinClassByStudentBatchHandler implements BatchDBHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JoinClassByStudentBatchHandler.class);
+    private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("messages");
+    private static final String DEFAULT_VALUE = "DEFAULT";
+    private static final String PARAMETER = "?";
+    private final List<ProcessorContext> contexts;
+    private final String classCode;
+
+    JoinClassByStudentBatchHandler(List<ProcessorContext> contexts) {
+        this.contexts = contexts;
+        this.classCode = contexts.get(0).classCode();
+    }
+
+    @Override
+    public List<ExecutionResult<MessageResponse>> executeRequests() {
+        List<ExecutionResult<MessageResponse>> results = new ArrayList<>(contexts.size());
+        AJEntityClass entityClass = ClassFinder.findClassByCode(classCode);
+        if (entityClass == null) {
+            LOGGER.warn("Not able to find class with code '{}'", classCode);
+            contexts.forEach(context -> results.add(new ExecutionResult<>(
+                MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")),
+                ExecutionResult.ExecutionStatus.FAILED)));
+            return results;
+        }
+        String classId = entityClass.getId().toString();
+        // Class should be of current version and Class should not be archived
+        if (!entityClass.isCurrentVersion() || entityClass.isArchived()) {
+            LOGGER.warn("Class with code '{}' is either archived or not of current version", classCode);
+            contexts.forEach(context -> results.add(new ExecutionResult<>(
+                MessageResponseFactory
+                    .createInvalidRequestResponse(RESOURCE_BUNDLE.getString("class.archived.or.incorrect.version")),
+                ExecutionResult.ExecutionStatus.FAILED)));
+            return results;
+        }
+        Map<String, AJClassMember> memberships = fetchMemberships(classId);
+        String collaborator = entityClass.getString(AJEntityClass.COLLABORATOR);
+        JsonArray collaborators =
+            collaborator != null && !collaborator.isEmpty() ? new JsonArray(collaborator) : new JsonArray();
+        Set<String> emailsInBatch = new HashSet<>();
+        List<Integer> joining = new ArrayList<>();
+        for (int i = 0; i < contexts.size(); i++) {
+            ProcessorContext context = contexts.get(i);
+            String email = context.prefs().getString(MessageConstants.EMAIL_ID);
+            AJClassMember membership = memberships.get(email);
+            ExecutionResult<MessageResponse> result = authorize(context, entityClass, collaborators, membership);
+            if (result.continueProcessing()) {
+                if (isJoined(membership) || !emailsInBatch.add(email)) {
+                    result = createJoinedResult();
+                } else {
+                    joining.add(i);
+                    result = null;
+                }
+            }
+            results.add(result);
+        }
+        if (!joining.isEmpty()) {
+            Set<String> written = upsertMemberships(classId, joining);
+            for (int i : joining) {
+                ProcessorContext context = contexts.get(i);
+                if (written.contains(context.prefs().getString(MessageConstants.EMAIL_ID))) {
+                    results.set(i, new ExecutionResult<>(
+                        MessageResponseFactory.createCreatedResponse(classId,
+                            EventBuilderFactory.getStudentJoinedEventBuilder(classId, context.userId())),
+                        ExecutionResult.ExecutionStatus.SUCCESSFUL));
+                } else {
+                    // Joined in the meantime by some other request
+                    results.set(i, createJoinedResult());
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean handlerRetryable() {
+        return true;
+    }
+
+    private Map<String, AJClassMember> fetchMemberships(String classId) {
+        List<String> emails = new ArrayList<>(contexts.size());
+        contexts.forEach(context -> emails.add(context.prefs().getString(MessageConstants.EMAIL_ID)));
+        LazyList<AJClassMember> members = AJClassMember.where(AJClassMember.FETCH_FOR_EMAILS_QUERY_FILTER, classId,
+            Utils.convertListToPostgresArrayStringRepresentation(emails));
+        Map<String, AJClassMember> memberships = new HashMap<>(members.size());
+        members.forEach(member -> memberships.put(member.getString(AJClassMember.EMAIL), member));
+        return memberships;
+    }
+
+    private static ExecutionResult<MessageResponse> authorize(ProcessorContext context, AJEntityClass entityClass,
+        JsonArray collaborators, AJClassMember membership) {
+        // User should not be teacher or co teacher
+        if (context.userId().equalsIgnoreCase(entityClass.getString(AJEntityClass.CREATOR_ID))
+            || collaborators.contains(context.userId())) {
+            return new ExecutionResult<>(
+                MessageResponseFactory.createForbiddenResponse(RESOURCE_BUNDLE.getString("existing.member")),
+                ExecutionResult.ExecutionStatus.FAILED);
+        }
+        // Open class, or restricted class to which user is invited
+        return AuthorizerBuilder.buildJoinClassByStudentAuthorizer(context, membership).authorize(entityClass);
+    }
+
+    private static boolean isJoined(AJClassMember membership) {
+        return membership != null && !AJClassMember.CLASS_MEMBER_STATUS_TYPE_INVITED
+            .equalsIgnoreCase(membership.getString(AJClassMember.CLASS_MEMBER_STATUS));
+    }
+
+    private static ExecutionResult<MessageResponse> createJoinedResult() {
+        return new ExecutionResult<>(
+            MessageResponseFactory.createNoContentResponse(RESOURCE_BUNDLE.getString("joined")),
+            ExecutionResult.ExecutionStatus.SUCCESSFUL);
+    }
+
+    /*
+     * Roster and creator system are left to their defaults when not given, as
+     * is the case when membership is saved via model
+     */
+    private Set<String> upsertMemberships(String classId, List<Integer> joining) {
+        StringJoiner rows = new StringJoiner(", ");
+        List<Object> params = new ArrayList<>(joining.size() * 5);
+        for (int i : joining) {
+            ProcessorContext context = contexts.get(i);
+            String rosterId = context.request().getString(AJClassMember.ROSTER_ID);
+            String creatorSystem = context.request().getString(AJClassMember.CREATOR_SYSTEM);
+            rows.add(String.format(AJClassMember.JOIN_CLASS_UPSERT_ROW, rosterId != null ? PARAMETER : DEFAULT_VALUE,
+                creatorSystem != null ? PARAMETER : DEFAULT_VALUE));
+            params.add(classId);
+            params.add(context.prefs().getString(MessageConstants.EMAIL_ID));
+            params.add(context.userId());
+            if (rosterId != null) {
+                params.add(rosterId);
+            }
+            if (creatorSystem != null) {
+                params.add(creatorSystem);
+            }
+        }
+        List<Map> written =
+            Base.findAll(String.format(AJClassMember.JOIN_CLASS_UPSERT_QUERY, rows.toString()), params.toArray());
+        Set<String> emails = new HashSet<>(written.size());
+        written.forEach(row -> emails.add(String.valueOf(row.get(AJClassMember.EMAIL))));
+        MemberCountStore.getInstance().adjust(classId, emails.size());
+        LOGGER.debug("Joined '{}' of '{}' students to class '{}' in batch", emails.size(), contexts.size(), classId);
+        return emails;
+    }
+}
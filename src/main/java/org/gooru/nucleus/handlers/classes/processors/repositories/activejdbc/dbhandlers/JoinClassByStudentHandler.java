@@ -3,6 +3,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 import java.util.Map;
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.MemberCountStore;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
@@ -79,14 +80,13 @@ class JoinClassByStudentHandler implements DBHandler {
 
     @Override
     public ExecutionResult<MessageResponse> validateRequest() {
-        LazyList<AJEntityClass> classes = AJEntityClass.where(AJEntityClass.FETCH_VIA_CODE_FILTER, context.classCode());
-        if (classes.isEmpty()) {
+        this.entityClass = ClassFinder.findClassByCode(context.classCode());
+        if (this.entityClass == null) {
             LOGGER.warn("Not able to find class with code '{}'", this.context.classCode());
             return new ExecutionResult<>(
                 MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")),
                 ExecutionResult.ExecutionStatus.FAILED);
         }
-        this.entityClass = classes.get(0);
         this.classId = this.entityClass.getId().toString();
         // Class should be of current version and Class should not be archived
         if (!this.entityClass.isCurrentVersion() || this.entityClass.isArchived()) {
@@ -151,6 +151,8 @@ class JoinClassByStudentHandler implements DBHandler {
             if (this.membership.hasErrors()) {
                 return membershipErrors();
             }
+        } else {
+            MemberCountStore.getInstance().adjust(this.classId, 1);
         }
         return new ExecutionResult<>(
             MessageResponseFactory.createCreatedResponse(this.classId,
@@ -163,6 +165,11 @@ class JoinClassByStudentHandler implements DBHandler {
         return false;
     }
 
+    @Override
+    public boolean handlerRetryable() {
+        return true;
+    }
+
     private static class DefaultPayloadValidator implements PayloadValidator {
     }
 
@@ -2,6 +2,8 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.MemberCountStore;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
 import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
 import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
@@ -12,7 +14,6 @@ import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
 import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
 import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
 import org.javalite.activejdbc.DBException;
-import org.javalite.activejdbc.LazyList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,14 +49,13 @@ class RemoveStudentHandler implements DBHandler {
 
     @Override
     public ExecutionResult<MessageResponse> validateRequest() {
-        LazyList<AJEntityClass> classes = AJEntityClass.where(AJEntityClass.FETCH_QUERY_FILTER, context.classId());
-        if (classes.isEmpty()) {
+        AJEntityClass entityClass = ClassFinder.findClass(context.classId());
+        if (entityClass == null) {
             LOGGER.warn("Not able to find class '{}'", this.context.classId());
             return new ExecutionResult<>(
                 MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")),
                 ExecutionResult.ExecutionStatus.FAILED);
         }
-        AJEntityClass entityClass = classes.get(0);
         // Class should be of current version and Class should not be archived
         if (!entityClass.isCurrentVersion() || entityClass.isArchived()) {
             LOGGER.warn("Class '{}' is either archived or not of current version", context.classId());
@@ -71,13 +71,18 @@ class RemoveStudentHandler implements DBHandler {
     @Override
     public ExecutionResult<MessageResponse> executeRequest() {
         try {
-            AJClassMember.delete(AJClassMember.REMOVE_STUDENT_QUERY_FILTER, context.classId(), context.studentId());
+            int removed =
+                AJClassMember.delete(AJClassMember.REMOVE_STUDENT_QUERY_FILTER, context.classId(), context.studentId());
+            MemberCountStore.getInstance().adjust(context.classId(), -removed);
             return new ExecutionResult<>(
                 MessageResponseFactory.createNoContentResponse(RESOURCE_BUNDLE.getString("student.removed"),
                     EventBuilderFactory.getInviteRemovalEventBuilder(context.classId(), context.studentEmail())),
                 ExecutionResult.ExecutionStatus.SUCCESSFUL);
 
         } catch (DBException dbe) {
+            if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                throw dbe;
+            }
             LOGGER.error("Error trying to remove student", dbe);
             return new ExecutionResult<>(
                 MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
@@ -119,6 +119,11 @@ class UpdateClassHandler implements DBHandler {
         return false;
     }
 
+    @Override
+    public boolean handlerRetryable() {
+        return true;
+    }
+
     private static class DefaultPayloadValidator implements PayloadValidator {
     }
 
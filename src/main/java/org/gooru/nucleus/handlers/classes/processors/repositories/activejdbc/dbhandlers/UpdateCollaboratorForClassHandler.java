@@ -132,6 +132,11 @@ class UpdateCollaboratorForClassHandler implements DBHandler {
         return false;
     }
 
+    @Override
+    public boolean handlerRetryable() {
+        return true;
+    }
+
     private JsonObject calculateDiffOfCollaborators() {
         JsonObject result = new JsonObject();
         // Find current collaborators
@@ -0,0 +1,137 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbhandlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import org.gooru.nucleus.handlers.classes.app.components.ClassCodeIndex;
+import org.gooru.nucleus.handlers.classes.app.components.MemberCountStore;
+import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
+import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
+import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJClassMember;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
+import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
+import org.javalite.activejdbc.Base;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Join of student to class in one statement, used when join mode is upsert.
+ * Sanity checks are same as JoinClassByStudentHandler, but class lookup,
+ * membership checks and the write are done by one upsert, so that there is no
+ * window between checking the membership and writing it.
+ * <p>
+ * Join is idempotent in this mode, so student who has already joined the
+ * class gets the same response as when joining again via the invite.
+ */
+class UpsertJoinClassByStudentHandler extends JoinClassByStudentHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpsertJoinClassByStudentHandler.class);
+    private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("messages");
+    private static final String IS_TEACHER = "is_teacher";
+    private static final String IS_JOINED = "is_joined";
+    private static final String IS_INVITED = "is_invited";
+    private static final String IS_UPSERTED = "is_upserted";
+    private final ProcessorContext context;
+
+    UpsertJoinClassByStudentHandler(ProcessorContext context) {
+        super(context);
+        this.context = context;
+    }
+
+    @Override
+    public ExecutionResult<MessageResponse> validateRequest() {
+        // Rest of validations are part of the upsert
+        if (!ClassCodeIndex.getInstance().mightExist(context.classCode())) {
+            LOGGER.warn("Not able to find class with code '{}'", context.classCode());
+            return new ExecutionResult<>(
+                MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")),
+                ExecutionResult.ExecutionStatus.FAILED);
+        }
+        return new ExecutionResult<>(null, ExecutionResult.ExecutionStatus.CONTINUE_PROCESSING);
+    }
+
+    @Override
+    public ExecutionResult<MessageResponse> executeRequest() {
+        String rosterId = context.request().getString(AJClassMember.ROSTER_ID);
+        String creatorSystem = context.request().getString(AJClassMember.CREATOR_SYSTEM);
+        String email = context.prefs().getString(MessageConstants.EMAIL_ID);
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        params.add(context.userId());
+        params.add(context.userId());
+        params.add(context.classCode());
+        params.add(email);
+        params.add(email);
+        params.add(context.userId());
+        params.add(email);
+        params.add(context.userId());
+        // Left to their defaults when not given, as is the case when
+        // membership is saved via model
+        if (rosterId != null) {
+            columns.append(", ").append(AJClassMember.ROSTER_ID);
+            values.append(", ?");
+            params.add(rosterId);
+        }
+        if (creatorSystem != null) {
+            columns.append(", ").append(AJClassMember.CREATOR_SYSTEM);
+            values.append(", ?");
+            params.add(creatorSystem);
+        }
+        params.add(AJEntityClass.CURRENT_VERSION);
+        params.add(AJEntityClass.CLASS_SHARING_TYPE_OPEN);
+        List<Map> rows = Base.findAll(
+            String.format(AJClassMember.JOIN_CLASS_SINGLE_STATEMENT_QUERY, columns.toString(), values.toString()),
+            params.toArray());
+        return classifyOutcome(rows);
+    }
+
+    private ExecutionResult<MessageResponse> classifyOutcome(List<Map> rows) {
+        if (rows.isEmpty()) {
+            LOGGER.warn("Not able to find class with code '{}'", context.classCode());
+            return new ExecutionResult<>(
+                MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")),
+                ExecutionResult.ExecutionStatus.FAILED);
+        }
+        Map row = rows.get(0);
+        String classId = String.valueOf(row.get(AJEntityClass.ID));
+        // Class should be of current version and Class should not be archived
+        if (((Number) row.get(AJEntityClass.GOORU_VERSION)).intValue() != AJEntityClass.CURRENT_VERSION
+            || Boolean.TRUE.equals(row.get(AJEntityClass.IS_ARCHIVED))) {
+            LOGGER.warn("Class with code '{}' is either archived or not of current version", context.classCode());
+            return new ExecutionResult<>(
+                MessageResponseFactory
+                    .createInvalidRequestResponse(RESOURCE_BUNDLE.getString("class.archived.or.incorrect.version")),
+                ExecutionResult.ExecutionStatus.FAILED);
+        }
+        // User should not be teacher or co teacher
+        if (Boolean.TRUE.equals(row.get(IS_TEACHER))) {
+            return new ExecutionResult<>(
+                MessageResponseFactory.createForbiddenResponse(RESOURCE_BUNDLE.getString("existing.member")),
+                ExecutionResult.ExecutionStatus.FAILED);
+        }
+        if (Boolean.TRUE.equals(row.get(IS_UPSERTED))) {
+            MemberCountStore.getInstance().adjust(classId, 1);
+            return new ExecutionResult<>(
+                MessageResponseFactory.createCreatedResponse(classId,
+                    EventBuilderFactory.getStudentJoinedEventBuilder(classId, context.userId())),
+                ExecutionResult.ExecutionStatus.SUCCESSFUL);
+        }
+        // Not written while allowed to join means that student had joined,
+        // may be by some other request in the meantime
+        if (Boolean.TRUE.equals(row.get(IS_JOINED)) || Boolean.TRUE.equals(row.get(IS_INVITED))
+            || AJEntityClass.CLASS_SHARING_TYPE_OPEN.equalsIgnoreCase(
+                String.valueOf(row.get(AJEntityClass.CLASS_SHARING)))) {
+            return new ExecutionResult<>(
+                MessageResponseFactory.createNoContentResponse(RESOURCE_BUNDLE.getString("joined")),
+                ExecutionResult.ExecutionStatus.SUCCESSFUL);
+        }
+        return new ExecutionResult<>(
+            MessageResponseFactory.createForbiddenResponse(RESOURCE_BUNDLE.getString("not.allowed")),
+            ExecutionResult.ExecutionStatus.FAILED);
+    }
+}
@@ -2,6 +2,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 
 import java.util.ResourceBundle;
 
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.Utils;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityCollection;
@@ -94,6 +95,9 @@ public final class ContentVisibilityHelper {
                         ExecutionResult.ExecutionStatus.FAILED);
                 }
             } catch (DBException dbe) {
+                if (StatementTimeoutPolicy.isStatementCancelled(dbe)) {
+                    throw dbe;
+                }
                 LOGGER
                     .error("Error validating collection counts for visibility setting for course '{}'", courseId, dbe);
                 return new ExecutionResult<>(
@@ -2,6 +2,10 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.db
 
 import java.util.*;
 
+import org.gooru.nucleus.handlers.classes.app.components.ClassVisibleContent;
+import org.gooru.nucleus.handlers.classes.app.components.CourseContentCatalog;
+import org.gooru.nucleus.handlers.classes.app.components.ReadReplicaRouter;
+import org.gooru.nucleus.handlers.classes.app.components.VisibleContentIndex;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityCollection;
 import org.javalite.activejdbc.Base;
@@ -34,6 +38,18 @@ public final class VisibleContentHelper {
      * @param result   JsonObject which will be populated with all the assessments id which are visible in that class
      */
     public static void populateVisibleAssessments(String classId, String courseId, JsonObject result) {
+        ClassVisibleContent content = findVisibleContent(classId, courseId);
+        if (content != null) {
+            JsonArray idArray = new JsonArray();
+            CourseContentCatalog catalog = content.catalog();
+            content.forEachVisible(position -> {
+                if (!AJEntityCollection.FORMAT_TYPE_COLLECTION.equalsIgnoreCase(catalog.format(position))) {
+                    idArray.add(catalog.id(position));
+                }
+            });
+            result.put(AJEntityClass.CV_ASSESSMENTS, idArray);
+            return;
+        }
         LazyList<AJEntityCollection> assessments =
             AJEntityCollection.findBySQL(AJEntityCollection.FETCH_VISIBLE_ASSESSMENTS_QUERY, courseId, classId);
         JsonArray idArray = new JsonArray();
@@ -52,6 +68,26 @@ public final class VisibleContentHelper {
      * @param result   JsonObject which will get populated with all assessments/collections which are visible
      */
     public static void populateVisibleItems(String classId, String courseId, JsonObject result) {
+        ClassVisibleContent content = findVisibleContent(classId, courseId);
+        if (content != null) {
+            JsonArray collections = new JsonArray();
+            JsonArray assessments = new JsonArray();
+            CourseContentCatalog catalog = content.catalog();
+            content.forEachVisible(position -> {
+                String format = catalog.format(position);
+                if (AJEntityCollection.FORMAT_TYPE_ASSESSMENT.equalsIgnoreCase(format)
+                    || AJEntityCollection.FORMAT_TYPE_ASSESSMENT_EXT.equalsIgnoreCase(format)) {
+                    assessments.add(catalog.id(position));
+                } else if (AJEntityCollection.FORMAT_TYPE_COLLECTION.equalsIgnoreCase(format)) {
+                    collections.add(catalog.id(position));
+                } else {
+                    LOGGER.warn("Invalid format for collection/assessment id {}", catalog.id(position));
+                }
+            });
+            result.put(AJEntityClass.CV_ASSESSMENTS, assessments);
+            result.put(AJEntityClass.CV_COLLECTIONS, collections);
+            return;
+        }
         LazyList<AJEntityCollection> items =
             AJEntityCollection.findBySQL(AJEntityCollection.FETCH_VISIBLE_ITEMS_QUERY, courseId, classId);
         JsonArray collections = new JsonArray();
@@ -84,7 +120,9 @@ public final class VisibleContentHelper {
      * @return JsonObject with necessary statistics
      */
     public static JsonObject getCourseVisibleStatistics(String classId, String courseId) {
-        List<Map> counts = Base.findAll(AJEntityCollection.FETCH_STATISTICS_QUERY, courseId, classId);
+        ClassVisibleContent content = findVisibleContent(classId, courseId);
+        List<Map> counts = content != null ? countVisibleByLesson(content)
+            : Base.findAll(AJEntityCollection.FETCH_STATISTICS_QUERY, courseId, classId);
         Map<String, Set<String>> unitLessonMap = new HashMap<>();
         Map<String, Integer> collectionCountByLesson = new HashMap<>();
         Map<String, Integer> assessmentCountByLesson = new HashMap<>();
@@ -143,4 +181,81 @@ public final class VisibleContentHelper {
         result.put(AJEntityCollection.COURSE, course);
         return result;
     }
+
+    /*
+     * Visible content of class from index, building the entry if it is not
+     * there. Returns null if index is disabled, or if content was created
+     * while the entry was being built, in which case caller reads from DB.
+     * What is read from a replica may be stale, so it is not put in index.
+     */
+    private static ClassVisibleContent findVisibleContent(String classId, String courseId) {
+        VisibleContentIndex index = VisibleContentIndex.getInstance();
+        if (!index.isEnabled()) {
+            return null;
+        }
+        ClassVisibleContent content = index.get(classId, courseId);
+        if (content != null) {
+            return content;
+        }
+        long version = index.version();
+        CourseContentCatalog catalog = index.getCatalog(courseId);
+        boolean catalogLoaded = catalog == null;
+        if (catalogLoaded) {
+            catalog = loadCatalog(courseId);
+        }
+        List visibleIds = Base.firstColumn(AJEntityCollection.FETCH_VISIBLE_IDS_QUERY, courseId, classId);
+        content = ClassVisibleContent.of(catalog, visibleIds);
+        if (content == null && !catalogLoaded) {
+            // Content created since the catalog was loaded
+            catalog = loadCatalog(courseId);
+            catalogLoaded = true;
+            content = ClassVisibleContent.of(catalog, visibleIds);
+        }
+        if (content == null) {
+            return null;
+        }
+        if (ReadReplicaRouter.getInstance().isReadingReplica()) {
+            return content;
+        }
+        if (catalogLoaded) {
+            index.putCatalog(catalog);
+        }
+        index.put(classId, version, content);
+        return content;
+    }
+
+    private static CourseContentCatalog loadCatalog(String courseId) {
+        CourseContentCatalog.Builder builder = new CourseContentCatalog.Builder(courseId);
+        List<Map> rows = Base.findAll(AJEntityCollection.FETCH_CATALOG_QUERY, courseId);
+        rows.forEach(row -> builder.add(String.valueOf(row.get(AJEntityCollection.ID)),
+            String.valueOf(row.get(AJEntityCollection.FORMAT_TYPE)),
+            Convert.toString(row.get(AJEntityCollection.UNIT_ID)),
+            Convert.toString(row.get(AJEntityCollection.LESSON_ID))));
+        return builder.build();
+    }
+
+    /*
+     * Rows in the shape of statistics query, counted from visible content
+     */
+    private static List<Map> countVisibleByLesson(ClassVisibleContent content) {
+        CourseContentCatalog catalog = content.catalog();
+        Map<List<String>, Integer> countByLessonFormat = new HashMap<>();
+        content.forEachVisible(position -> {
+            if (catalog.unitId(position) != null && catalog.lessonId(position) != null) {
+                countByLessonFormat.merge(
+                    Arrays.asList(catalog.unitId(position), catalog.lessonId(position), catalog.format(position)), 1,
+                    Integer::sum);
+            }
+        });
+        List<Map> rows = new ArrayList<>(countByLessonFormat.size());
+        countByLessonFormat.forEach((key, count) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put(AJEntityCollection.UNIT_ID, key.get(0));
+            row.put(AJEntityCollection.LESSON_ID, key.get(1));
+            row.put(AJEntityCollection.FORMAT_TYPE, key.get(2));
+            row.put(AJEntityCollection.CA_COUNT, count);
+            rows.add(row);
+        });
+        return rows;
+    }
 }
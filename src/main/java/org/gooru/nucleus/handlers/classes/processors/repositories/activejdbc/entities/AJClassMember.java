@@ -40,6 +40,7 @@ public class AJClassMember extends Model {
 
     public static final String FETCH_FOR_USER_QUERY_FILTER = "class_id = ?::uuid and user_id = ?::uuid";
     public static final String FETCH_FOR_EMAIL_QUERY_FILTER = "class_id = ?::uuid and email = ?";
+    public static final String FETCH_FOR_EMAILS_QUERY_FILTER = "class_id = ?::uuid and email = ANY(?::text[])";
     public static final String FETCH_ALL_QUERY_FILTER = "class_id = ?::uuid";
     public static final String DELETE_MEMBERSHIP_FOR_CLASS_QUERY = "delete from class_member where class_id = ?::uuid";
     public static final String FETCH_USER_MEMBERSHIP_QUERY =
@@ -57,6 +58,35 @@ public class AJClassMember extends Model {
         "class_id = ?::uuid and email = ? and class_member_status = 'invited'::class_member_status_type";
     public static final String REMOVE_STUDENT_QUERY_FILTER =
         "class_id = ?::uuid and user_id = ?::uuid and class_member_status = 'joined'::class_member_status_type";
+    // Joins of a batch, new members are inserted and invited ones are marked
+    // joined, while rows of already joined members are left as they are
+    public static final String JOIN_CLASS_UPSERT_QUERY =
+        "insert into class_member (class_id, email, user_id, class_member_status, roster_id, creator_system, "
+            + "created_at, updated_at) values %s on conflict (class_id, email) do update set user_id = "
+            + "excluded.user_id, class_member_status = excluded.class_member_status, updated_at = "
+            + "excluded.updated_at where class_member.class_member_status = 'invited'::class_member_status_type "
+            + "returning email";
+    public static final String JOIN_CLASS_UPSERT_ROW =
+        "(?::uuid, ?, ?::uuid, 'joined'::class_member_status_type, %s, %s, now(), now())";
+    // Join in one statement, which checks the class and membership of user,
+    // and then inserts or updates the membership if user is allowed to join.
+    // Row tells the outcome; there is none if class is not found.
+    public static final String JOIN_CLASS_SINGLE_STATEMENT_QUERY =
+        "with cls as (select id, class_sharing::text as class_sharing, gooru_version, is_archived, (creator_id = "
+            + "?::uuid or coalesce(collaborator ?? ?, false)) as is_teacher from class where code = ? and "
+            + "is_deleted = false limit 1), member as (select coalesce(bool_or(cm.class_member_status = "
+            + "'joined'::class_member_status_type), false) as is_joined, coalesce(bool_or(cm.email = ? and "
+            + "cm.class_member_status = 'invited'::class_member_status_type), false) as is_invited from "
+            + "class_member cm, cls where cm.class_id = cls.id and (cm.email = ? or cm.user_id = ?::uuid)), "
+            + "upserted as (insert into class_member (class_id, email, user_id, class_member_status, created_at, "
+            + "updated_at%s) select cls.id, ?, ?::uuid, 'joined'::class_member_status_type, now(), now()%s from cls, "
+            + "member where cls.gooru_version = ? and not cls.is_archived and not cls.is_teacher and not "
+            + "member.is_joined and (cls.class_sharing = ? or member.is_invited) on conflict (class_id, email) do "
+            + "update set user_id = excluded.user_id, class_member_status = excluded.class_member_status, "
+            + "updated_at = excluded.updated_at where class_member.class_member_status = "
+            + "'invited'::class_member_status_type returning class_id) select cls.id, cls.class_sharing, "
+            + "cls.gooru_version, cls.is_archived, cls.is_teacher, member.is_joined, member.is_invited, exists "
+            + "(select 1 from upserted) as is_upserted from cls, member";
 
     public void setClassId(String classId) {
         if (classId != null && !classId.isEmpty()) {
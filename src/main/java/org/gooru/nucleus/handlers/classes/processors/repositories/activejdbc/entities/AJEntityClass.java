@@ -264,6 +264,16 @@ public class AJEntityClass extends Model {
         }
     }
 
+    /**
+     * Model with attributes from snapshot of class row, e.g. from cache, to be
+     * used for reads only
+     */
+    public static AJEntityClass fromSnapshot(Map<String, Object> attributes) {
+        AJEntityClass entityClass = new AJEntityClass();
+        entityClass.hydrate(attributes, false);
+        return entityClass;
+    }
+
     public boolean isCurrentVersion() {
         return getInteger(GOORU_VERSION) == CURRENT_VERSION;
     }
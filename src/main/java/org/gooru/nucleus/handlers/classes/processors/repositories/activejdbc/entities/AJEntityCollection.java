@@ -33,6 +33,11 @@ public class AJEntityCollection extends Model {
     public static final String FETCH_STATISTICS_QUERY =
         "select course_id, unit_id, lesson_id, format, count(id) from collection where course_id = ?::uuid and "
             + "is_deleted = false and class_visibility ?? ? group by course_id, unit_id, lesson_id, format";
+    // Catalog of course and ids of its content visible in class, for visible content index
+    public static final String FETCH_CATALOG_QUERY =
+        "select id, format, unit_id, lesson_id from collection where course_id = ?::uuid and is_deleted = false";
+    public static final String FETCH_VISIBLE_IDS_QUERY =
+        "select id from collection where course_id = ?::uuid and is_deleted = false and class_visibility ?? ?";
     public static final String COLLECTIONS_QUERY_FILTER =
         "course_id = ?::uuid and id = ANY(?::uuid[]) and is_deleted = false and (not class_visibility ?? ? or "
             + "class_visibility is null)";
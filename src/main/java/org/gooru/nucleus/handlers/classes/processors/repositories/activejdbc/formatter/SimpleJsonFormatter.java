@@ -5,6 +5,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
+import org.gooru.nucleus.handlers.classes.app.components.ApplicationMetrics;
 import org.javalite.activejdbc.LazyList;
 import org.javalite.activejdbc.Model;
 import org.javalite.activejdbc.ModelDelegate;
@@ -35,21 +36,26 @@ class SimpleJsonFormatter implements JsonFormatter {
 
     @Override
     public <T extends Model> String toJson(T model) {
+        long start = System.nanoTime();
         StringBuilder sb = new StringBuilder(CAPACITY);
         String indent = "";
         modelToJson(model, sb, indent);
+        ApplicationMetrics.getInstance().recordPhase(null, ApplicationMetrics.PHASE_FORMAT, start);
         return sb.toString();
     }
 
     @Override
     public <T extends Model> String toJson(LazyList<T> modelList) {
+        // Size loads the lazy list, which should not be counted as formatting
+        int size = modelList.size();
+        long start = System.nanoTime();
         StringBuilder sb = new StringBuilder(CAPACITY);
         sb.append('[');
         if (pretty) {
             sb.append('\n');
         }
 
-        for (int i = 0; i < modelList.size(); i++) {
+        for (int i = 0; i < size; i++) {
             if (i > 0) {
                 sb.append(',');
                 if (pretty) {
@@ -63,6 +69,7 @@ class SimpleJsonFormatter implements JsonFormatter {
             sb.append('\n');
         }
         sb.append(']');
+        ApplicationMetrics.getInstance().recordPhase(null, ApplicationMetrics.PHASE_FORMAT, start);
         return sb.toString();
 
     }
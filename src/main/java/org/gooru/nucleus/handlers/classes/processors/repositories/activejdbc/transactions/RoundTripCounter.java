@@ -0,0 +1,101 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.transactions;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Counts the calls which go to DB server for each request. Connection handed
+ * over to ActiveJDBC is wrapped so that statement executions, commits,
+ * rollbacks and read only toggles on it are counted for the current thread.
+ * Totals are kept per execution path, so that the paths could be compared.
+ * As every JDBC call then goes through a proxy, it is used only when enabled
+ * in {@link org.gooru.nucleus.handlers.classes.app.components.ApplicationMetrics}.
+ */
+final class RoundTripCounter {
+
+    static final String PATH_TRANSACTION = "transaction";
+    static final String PATH_READ_ONLY = "read.only";
+    private static final ThreadLocal<int[]> CURRENT = ThreadLocal.withInitial(() -> new int[1]);
+    private static final AtomicLong TRANSACTION_REQUESTS = new AtomicLong();
+    private static final AtomicLong TRANSACTION_ROUND_TRIPS = new AtomicLong();
+    private static final AtomicLong READ_ONLY_REQUESTS = new AtomicLong();
+    private static final AtomicLong READ_ONLY_ROUND_TRIPS = new AtomicLong();
+
+    private RoundTripCounter() {
+        throw new AssertionError();
+    }
+
+    static Connection track(Connection connection) {
+        CURRENT.get()[0] = 0;
+        return wrap(Connection.class, connection);
+    }
+
+    /*
+     * Round trips made by current thread since the connection was tracked,
+     * added to totals of the specified path
+     */
+    static int record(String path) {
+        int count = CURRENT.get()[0];
+        if (PATH_READ_ONLY.equals(path)) {
+            READ_ONLY_REQUESTS.incrementAndGet();
+            READ_ONLY_ROUND_TRIPS.addAndGet(count);
+        } else {
+            TRANSACTION_REQUESTS.incrementAndGet();
+            TRANSACTION_ROUND_TRIPS.addAndGet(count);
+        }
+        return count;
+    }
+
+    static JsonObject getStats() {
+        return new JsonObject()
+            .put(PATH_TRANSACTION, pathStats(TRANSACTION_REQUESTS.get(), TRANSACTION_ROUND_TRIPS.get()))
+            .put(PATH_READ_ONLY, pathStats(READ_ONLY_REQUESTS.get(), READ_ONLY_ROUND_TRIPS.get()));
+    }
+
+    private static JsonObject pathStats(long requests, long roundTrips) {
+        return new JsonObject().put("requests", requests).put("round.trips", roundTrips).put("average",
+            requests == 0 ? 0.0 : (double) roundTrips / requests);
+    }
+
+    private static boolean isRoundTrip(Method method) {
+        String name = method.getName();
+        return name.startsWith("execute") || "commit".equals(name) || "rollback".equals(name)
+            || "setReadOnly".equals(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (isRoundTrip(method)) {
+                CURRENT.get()[0]++;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // Statements created from connection need to be counted as well
+            if (type != Connection.class) {
+                return result;
+            } else if (result instanceof CallableStatement) {
+                return wrap(CallableStatement.class, (CallableStatement) result);
+            } else if (result instanceof PreparedStatement) {
+                return wrap(PreparedStatement.class, (PreparedStatement) result);
+            } else if (result instanceof Statement) {
+                return wrap(Statement.class, (Statement) result);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(RoundTripCounter.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
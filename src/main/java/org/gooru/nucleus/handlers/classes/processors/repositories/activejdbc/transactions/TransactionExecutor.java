@@ -1,9 +1,36 @@
 package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.transactions;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import javax.sql.DataSource;
+
+import org.gooru.nucleus.handlers.classes.app.components.AdmissionController;
+import org.gooru.nucleus.handlers.classes.app.components.ApplicationMetrics;
+import org.gooru.nucleus.handlers.classes.app.components.AuthorizationCache;
+import org.gooru.nucleus.handlers.classes.app.components.ClassCache;
+import org.gooru.nucleus.handlers.classes.app.components.ClassesForUserCache;
 import org.gooru.nucleus.handlers.classes.app.components.DataSourceRegistry;
+import org.gooru.nucleus.handlers.classes.app.components.EventOutbox;
+import org.gooru.nucleus.handlers.classes.app.components.InvalidationBus;
+import org.gooru.nucleus.handlers.classes.app.components.ReadReplicaRouter;
+import org.gooru.nucleus.handlers.classes.app.components.StatementTimeoutPolicy;
+import org.gooru.nucleus.handlers.classes.app.components.TransactionRetryPolicy;
+import org.gooru.nucleus.handlers.classes.app.components.VisibleContentIndex;
+import org.gooru.nucleus.handlers.classes.app.components.WriteCoalescer;
+import org.gooru.nucleus.handlers.classes.constants.MessageConstants;
+import org.gooru.nucleus.handlers.classes.processors.DeadlineHelper;
+import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
+import org.gooru.nucleus.handlers.classes.processors.events.EventBuilderFactory;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbhandlers.BatchDBHandler;
 import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.dbhandlers.DBHandler;
 import org.gooru.nucleus.handlers.classes.processors.responses.ExecutionResult;
 import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
@@ -12,6 +39,8 @@ import org.javalite.activejdbc.Base;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.vertx.core.json.JsonObject;
+
 /**
  * Created by ashish on 11/1/16.
  */
@@ -24,41 +53,46 @@ public final class TransactionExecutor {
         throw new AssertionError();
     }
 
-    public static MessageResponse executeTransaction(DBHandler handler) {
+    public static MessageResponse executeTransaction(DBHandler handler, ProcessorContext context) {
         // First validations without any DB
+        long sanityStart = System.nanoTime();
         ExecutionResult<MessageResponse> executionResult = handler.checkSanity();
+        ApplicationMetrics.getInstance().recordPhase(null, ApplicationMetrics.PHASE_SANITY, sanityStart);
         // Now we need to run with transaction, if we are going to continue
         if (executionResult.continueProcessing()) {
-            executionResult = executeWithTransaction(handler);
+            if (DeadlineHelper.isExpired(context.deadline())) {
+                DeadlineHelper.recordExpired("transaction");
+                return createTimedOutResponse();
+            }
+            // Reads go to a replica or to read only pool, when there is one
+            DataSource readDataSource = handler.handlerReadOnly() ? selectReadDataSource() : null;
+            if (readDataSource != null) {
+                executionResult = executeWithoutTransaction(handler, context, readDataSource);
+            } else {
+                executionResult = executeWithTransaction(handler, context);
+            }
         }
         return executionResult.result();
 
     }
 
-    private static ExecutionResult<MessageResponse> executeWithTransaction(DBHandler handler) {
-        ExecutionResult<MessageResponse> executionResult;
-
+    private static ExecutionResult<MessageResponse> executeWithTransaction(DBHandler handler,
+        ProcessorContext context) {
         try {
-            Base.open(DataSourceRegistry.getInstance().getDefaultDataSource());
+            openConnection(DataSourceRegistry.getInstance().getDefaultDataSource());
             // If we need a read only transaction, then it is time to set up now
             if (handler.handlerReadOnly()) {
                 Base.connection().setReadOnly(true);
             }
-            Base.openTransaction();
-            executionResult = handler.validateRequest();
-            if (executionResult.continueProcessing()) {
-                executionResult = handler.executeRequest();
-                if (executionResult.isSuccessful()) {
-                    Base.commitTransaction();
-                } else {
-                    Base.rollbackTransaction();
-                }
-            } else {
-                Base.rollbackTransaction();
-            }
-            return executionResult;
+            return runWithRetries(handler.handlerRetryable(), context, () -> runTransaction(handler, context));
         } catch (Throwable e) {
             Base.rollbackTransaction();
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                return createStatementCancelledResult(context);
+            }
+            if (isPoolExhausted(e)) {
+                return createPoolExhaustedResult(e);
+            }
             LOGGER.error("Caught exception, need to rollback and abort", e);
             // Most probably we do not know what to do with this, so send
             // internal error
@@ -74,7 +108,408 @@ public final class TransactionExecutor {
                     LOGGER.error("Exception while marking connection to be read/write", e);
                 }
             }
+            closeConnection(RoundTripCounter.PATH_TRANSACTION);
+        }
+    }
+
+    /**
+     * Execute the handler along with concurrent requests which have the same
+     * key, in one transaction, if write coalescing is enabled. Sanity of each
+     * request is checked by its own handler before it joins the batch.
+     *
+     * @param handler Handler of this request
+     * @param context Context of this request
+     * @param key Requests with same key are executed together
+     * @param batchHandlerBuilder Builds handler for the batch from contexts of
+     *        requests
+     * @return response for this request
+     */
+    public static MessageResponse executeCoalesced(DBHandler handler, ProcessorContext context, String key,
+        Function<List<ProcessorContext>, BatchDBHandler> batchHandlerBuilder) {
+        if (!WriteCoalescer.getInstance().isEnabled()) {
+            return executeTransaction(handler, context);
+        }
+        long sanityStart = System.nanoTime();
+        ExecutionResult<MessageResponse> executionResult = handler.checkSanity();
+        ApplicationMetrics.getInstance().recordPhase(null, ApplicationMetrics.PHASE_SANITY, sanityStart);
+        if (!executionResult.continueProcessing()) {
+            return executionResult.result();
+        }
+        if (DeadlineHelper.isExpired(context.deadline())) {
+            DeadlineHelper.recordExpired("transaction");
+            return createTimedOutResponse();
+        }
+        return WriteCoalescer.getInstance().submit(context.op() + '/' + key, context, context.deadline(),
+            contexts -> executeBatch(batchHandlerBuilder.apply(contexts), contexts),
+            TransactionExecutor::createTimedOutResponse);
+    }
+
+    /*
+     * Batch runs with the deadline and statement timeout of its first request,
+     * which is the one that waited longest for it
+     */
+    private static List<MessageResponse> executeBatch(BatchDBHandler batchHandler, List<ProcessorContext> contexts) {
+        ProcessorContext context = contexts.get(0);
+        List<ExecutionResult<MessageResponse>> results;
+        try {
+            openConnection(DataSourceRegistry.getInstance().getDefaultDataSource());
+            results = runWithRetries(batchHandler.handlerRetryable(), context,
+                () -> runBatchTransaction(batchHandler, contexts));
+        } catch (Throwable e) {
+            Base.rollbackTransaction();
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                results = sameResultForAll(contexts.size(), () -> createStatementCancelledResult(context));
+            } else if (isPoolExhausted(e)) {
+                results = sameResultForAll(contexts.size(), () -> createPoolExhaustedResult(e));
+            } else {
+                LOGGER.error("Caught exception in batch, need to rollback and abort", e);
+                results = sameResultForAll(contexts.size(), () -> new ExecutionResult<>(
+                    MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
+                    ExecutionResult.ExecutionStatus.FAILED));
+            }
+        } finally {
+            closeConnection(RoundTripCounter.PATH_TRANSACTION);
+        }
+        List<MessageResponse> responses = new ArrayList<>(results.size());
+        results.forEach(result -> responses.add(result.result()));
+        return responses;
+    }
+
+    /*
+     * One run of a batch in a transaction on current connection. Events of
+     * successful requests go to outbox and invalidate caches, same as for
+     * requests run on their own.
+     */
+    private static List<ExecutionResult<MessageResponse>> runBatchTransaction(BatchDBHandler batchHandler,
+        List<ProcessorContext> contexts) {
+        ApplicationMetrics metrics = ApplicationMetrics.getInstance();
+        Base.openTransaction();
+        if (!applyStatementTimeout(contexts.get(0))) {
+            Base.rollbackTransaction();
+            return sameResultForAll(contexts.size(),
+                () -> new ExecutionResult<>(createTimedOutResponse(), ExecutionResult.ExecutionStatus.FAILED));
+        }
+        long start = System.nanoTime();
+        List<ExecutionResult<MessageResponse>> results = batchHandler.executeRequests();
+        metrics.recordPhase(null, ApplicationMetrics.PHASE_EXECUTE, start);
+        List<JsonObject> events = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ExecutionResult<MessageResponse> result = results.get(i);
+            if (result.isSuccessful() && result.result() != null) {
+                events.add(result.result().event());
+                results.set(i, appendEventToOutbox(result, contexts.get(i)));
+            } else {
+                events.add(null);
+            }
+        }
+        start = System.nanoTime();
+        Base.commitTransaction();
+        metrics.recordPhase(null, ApplicationMetrics.PHASE_COMMIT, start);
+        for (int i = 0; i < events.size(); i++) {
+            invalidateCaches(events.get(i), contexts.get(i));
+        }
+        return results;
+    }
+
+    private static List<ExecutionResult<MessageResponse>> sameResultForAll(int count,
+        Supplier<ExecutionResult<MessageResponse>> resultSupplier) {
+        // Each request gets its own response as delivery options of reply are
+        // updated while replying
+        List<ExecutionResult<MessageResponse>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(resultSupplier.get());
+        }
+        return results;
+    }
+
+    /*
+     * Run the transaction, and run it again if it failed because of conflict
+     * with other transactions, as long as retry policy and deadline allow it
+     */
+    private static <T> T runWithRetries(boolean retryable, ProcessorContext context, Callable<T> transaction)
+        throws Exception {
+        TransactionRetryPolicy retryPolicy = TransactionRetryPolicy.getInstance();
+        for (int attempt = 1;; attempt++) {
+            try {
+                T result = transaction.call();
+                if (attempt > 1) {
+                    retryPolicy.recordRetrySucceeded();
+                }
+                return result;
+            } catch (Exception e) {
+                String sqlState = retryable ? TransactionRetryPolicy.retryableSqlState(e) : null;
+                if (sqlState == null) {
+                    throw e;
+                }
+                // No point in retry which cannot finish before deadline
+                long backoff = retryPolicy.backoffMillis(attempt);
+                long remaining = DeadlineHelper.remainingMillis(context.deadline());
+                if ((remaining >= 0 && remaining <= backoff) || !retryPolicy.shouldRetry(attempt, sqlState)) {
+                    throw e;
+                }
+                Base.rollbackTransaction();
+                LOGGER.warn("Transaction failed with '{}' on attempt '{}', retrying in '{}' ms", sqlState, attempt,
+                    backoff);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    /*
+     * One run of validation and execution in a transaction on current
+     * connection, which could be repeated if it fails for retryable reasons
+     */
+    private static ExecutionResult<MessageResponse> runTransaction(DBHandler handler, ProcessorContext context) {
+        ExecutionResult<MessageResponse> executionResult;
+        ApplicationMetrics metrics = ApplicationMetrics.getInstance();
+        long deadline = context.deadline();
+        Base.openTransaction();
+        if (!applyStatementTimeout(context)) {
+            Base.rollbackTransaction();
+            return new ExecutionResult<>(createTimedOutResponse(), ExecutionResult.ExecutionStatus.FAILED);
+        }
+        long start = System.nanoTime();
+        executionResult = handler.validateRequest();
+        metrics.recordPhase(null, ApplicationMetrics.PHASE_VALIDATE, start);
+        if (executionResult.continueProcessing() && DeadlineHelper.isExpired(deadline)) {
+            DeadlineHelper.recordExpired("execution");
+            executionResult = new ExecutionResult<>(createTimedOutResponse(), ExecutionResult.ExecutionStatus.FAILED);
+        }
+        if (executionResult.continueProcessing()) {
+            start = System.nanoTime();
+            executionResult = handler.executeRequest();
+            metrics.recordPhase(null, ApplicationMetrics.PHASE_EXECUTE, start);
+            if (executionResult.isSuccessful()) {
+                JsonObject event = executionResult.result() != null ? executionResult.result().event() : null;
+                executionResult = appendEventToOutbox(executionResult, context);
+                start = System.nanoTime();
+                Base.commitTransaction();
+                metrics.recordPhase(null, ApplicationMetrics.PHASE_COMMIT, start);
+                invalidateCaches(event, context);
+            } else {
+                Base.rollbackTransaction();
+            }
+        } else {
+            Base.rollbackTransaction();
+        }
+        return executionResult;
+    }
+
+    /*
+     * Read only handlers on read only pool run in auto commit mode, as under
+     * read committed isolation each statement takes its own snapshot anyway.
+     * This saves the round trips for toggling read only state and for commit.
+     * Only the ops which have their own timeout pay for a transaction, so that
+     * SET LOCAL could be used; it overrides any session level timeout set by
+     * connectionInitSql of the pool, be it shorter or longer.
+     *
+     * A pool which timed out waiting for a free connection is overloaded, and
+     * so gets the overloaded response rather than more load on primary. Only a
+     * replica which could not give connection for other reasons is taken out
+     * of rotation, with the read going to primary.
+     */
+    private static ExecutionResult<MessageResponse> executeWithoutTransaction(DBHandler handler,
+        ProcessorContext context, DataSource dataSource) {
+        ExecutionResult<MessageResponse> executionResult;
+        try {
+            openConnection(dataSource);
+        } catch (SQLException e) {
+            if (isPoolExhausted(e)) {
+                return createPoolExhaustedResult(e);
+            }
+            if (!DataSourceRegistry.getInstance().getReadReplicas().containsValue(dataSource)) {
+                LOGGER.error("Not able to get connection for read", e);
+                return new ExecutionResult<>(
+                    MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
+                    ExecutionResult.ExecutionStatus.FAILED);
+            }
+            LOGGER.warn("Not able to get connection from replica, falling back to primary", e);
+            ReadReplicaRouter.getInstance().markUnhealthy(dataSource);
+            return executeWithTransaction(handler, context);
+        }
+        boolean inTransaction = false;
+        try {
+            if (StatementTimeoutPolicy.getInstance().timeoutMillis(context.op()) > 0) {
+                Base.openTransaction();
+                inTransaction = true;
+                if (!applyStatementTimeout(context)) {
+                    Base.rollbackTransaction();
+                    return new ExecutionResult<>(createTimedOutResponse(), ExecutionResult.ExecutionStatus.FAILED);
+                }
+            }
+            ApplicationMetrics metrics = ApplicationMetrics.getInstance();
+            long start = System.nanoTime();
+            executionResult = handler.validateRequest();
+            metrics.recordPhase(null, ApplicationMetrics.PHASE_VALIDATE, start);
+            if (executionResult.continueProcessing() && DeadlineHelper.isExpired(context.deadline())) {
+                DeadlineHelper.recordExpired("execution");
+                executionResult =
+                    new ExecutionResult<>(createTimedOutResponse(), ExecutionResult.ExecutionStatus.FAILED);
+            }
+            if (executionResult.continueProcessing()) {
+                start = System.nanoTime();
+                executionResult = handler.executeRequest();
+                metrics.recordPhase(null, ApplicationMetrics.PHASE_EXECUTE, start);
+            }
+            if (inTransaction) {
+                Base.commitTransaction();
+            }
+            return executionResult;
+        } catch (Throwable e) {
+            if (inTransaction) {
+                Base.rollbackTransaction();
+            }
+            if (StatementTimeoutPolicy.isStatementCancelled(e)) {
+                return createStatementCancelledResult(context);
+            }
+            LOGGER.error("Caught exception while reading, need to abort", e);
+            return new ExecutionResult<>(
+                MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")),
+                ExecutionResult.ExecutionStatus.FAILED);
+        } finally {
+            closeConnection(RoundTripCounter.PATH_READ_ONLY);
+        }
+    }
+
+    private static DataSource selectReadDataSource() {
+        DataSource replica = ReadReplicaRouter.getInstance().selectReplica();
+        return replica != null ? replica : DataSourceRegistry.getInstance().getReadOnlyDataSource();
+    }
+
+    private static void openConnection(DataSource dataSource) throws SQLException {
+        long waitStart = AdmissionController.getInstance().awaitingConnection();
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } finally {
+            AdmissionController.getInstance().connectionAcquired(waitStart);
+            ApplicationMetrics.getInstance().recordPhase(null, ApplicationMetrics.PHASE_CONNECTION, start);
+        }
+        Base.attach(ApplicationMetrics.getInstance().isRoundTripsEnabled() ? RoundTripCounter.track(connection)
+            : connection);
+        ReadReplicaRouter.getInstance().setReading(dataSource);
+    }
+
+    private static void closeConnection(String path) {
+        ReadReplicaRouter.getInstance().clearReading();
+        if (Base.hasConnection()) {
+            if (ApplicationMetrics.getInstance().isRoundTripsEnabled()) {
+                int roundTrips = RoundTripCounter.record(path);
+                LOGGER.debug("Request made '{}' round trips to DB on '{}' path", roundTrips, path);
+            }
             Base.close();
         }
     }
+
+    /**
+     * Round trips made to DB, per execution path, if they are being counted
+     */
+    public static JsonObject getRoundTripStats() {
+        return ApplicationMetrics.getInstance().isRoundTripsEnabled() ? RoundTripCounter.getStats()
+            : new JsonObject();
+    }
+
+    /*
+     * Limit the statements in current transaction to the timeout of op, or to
+     * the time left before deadline if that is earlier, so that DB does not
+     * keep working for caller who has gone away and slow statements do not
+     * hold on to connections. Returns false if deadline has already expired.
+     */
+    private static boolean applyStatementTimeout(ProcessorContext context) {
+        long remaining = DeadlineHelper.remainingMillis(context.deadline());
+        if (remaining == 0) {
+            DeadlineHelper.recordExpired("validation");
+            return false;
+        }
+        long timeout = StatementTimeoutPolicy.getInstance().timeoutMillis(context.op());
+        if (remaining > 0 && (timeout == 0 || remaining < timeout)) {
+            timeout = remaining;
+        }
+        if (timeout > 0) {
+            Base.exec("SET LOCAL statement_timeout = " + timeout);
+        }
+        return true;
+    }
+
+    /*
+     * Statement cancelled by DB is either because the deadline ran out, in
+     * which case caller has gone away anyway, or because it ran past the
+     * timeout of op, which gets its own response so that it is not mistaken
+     * for a store failure
+     */
+    private static ExecutionResult<MessageResponse> createStatementCancelledResult(ProcessorContext context) {
+        if (DeadlineHelper.isExpired(context.deadline())) {
+            DeadlineHelper.recordExpired("statement");
+            return new ExecutionResult<>(createTimedOutResponse(), ExecutionResult.ExecutionStatus.FAILED);
+        }
+        LOGGER.warn("Statement for op '{}' ran past its timeout and was cancelled", context.op());
+        StatementTimeoutPolicy.getInstance().recordCancelled(context.op());
+        return new ExecutionResult<>(
+            MessageResponseFactory.createStatementTimedOutResponse(RESOURCE_BUNDLE.getString("statement.timed.out")),
+            ExecutionResult.ExecutionStatus.FAILED);
+    }
+
+    /*
+     * Hikari times out waiting for a connection with the last failure to
+     * connect as cause, if there was one, so without a cause all connections
+     * were just busy
+     */
+    private static boolean isPoolExhausted(Throwable e) {
+        return e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    private static ExecutionResult<MessageResponse> createPoolExhaustedResult(Throwable e) {
+        LOGGER.warn("Timed out waiting for DB connection, server overloaded: {}", e.getMessage());
+        return new ExecutionResult<>(MessageResponseFactory.createOverloadedResponse(
+            RESOURCE_BUNDLE.getString("server.overloaded"), AdmissionController.getInstance().getRetryAfterSeconds()),
+            ExecutionResult.ExecutionStatus.FAILED);
+    }
+
+    /*
+     * With outbox enabled, the event is written in current transaction and
+     * relayed later, so the response should not carry it any more. Session
+     * token is stored with event as verticle is not going to see it.
+     */
+    private static ExecutionResult<MessageResponse> appendEventToOutbox(
+        ExecutionResult<MessageResponse> executionResult, ProcessorContext context) {
+        MessageResponse response = executionResult.result();
+        if (!EventOutbox.getInstance().isEnabled() || response == null || response.event() == null) {
+            return executionResult;
+        }
+        JsonObject event = response.event().copy();
+        if (context.sessionToken() != null && !context.sessionToken().isEmpty()) {
+            event.put(MessageConstants.MSG_HEADER_TOKEN, context.sessionToken());
+        }
+        EventOutbox.getInstance().append(event);
+        return new ExecutionResult<>(response.withoutEvent(), ExecutionResult.ExecutionStatus.SUCCESSFUL);
+    }
+
+    /*
+     * Writes which produce events are the ones which change what is cached,
+     * so the event tells what to invalidate
+     */
+    private static void invalidateCaches(JsonObject event, ProcessorContext context) {
+        if (event == null) {
+            return;
+        }
+        String classId = EventBuilderFactory.getClassId(event);
+        Set<String> userIds = EventBuilderFactory.getAssociatedUserIds(event);
+        userIds.add(context.userId());
+        ClassesForUserCache.getInstance().invalidate(classId, userIds);
+        AuthorizationCache.getInstance().invalidate(classId);
+        if (EventBuilderFactory.isClassChangeEvent(event)) {
+            ClassCache.getInstance().invalidate(classId);
+        }
+        List<String> visibleContentIds = EventBuilderFactory.getVisibleContentIds(event);
+        if (visibleContentIds != null) {
+            VisibleContentIndex.getInstance().markVisible(classId, visibleContentIds);
+        }
+        InvalidationBus.getInstance().publish(classId,
+            EventBuilderFactory.isClassChangeEvent(event) || visibleContentIds != null, userIds);
+    }
+
+    private static MessageResponse createTimedOutResponse() {
+        return MessageResponseFactory.createTimedOutResponse(RESOURCE_BUNDLE.getString("request.timed.out"));
+    }
 }
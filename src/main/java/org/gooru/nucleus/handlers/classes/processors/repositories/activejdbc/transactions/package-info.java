@@ -6,5 +6,7 @@ package org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.tr
  * running transactions. It provides try - catch handlers to make sure that
  * handlers when run are either committed or rolled back, and the connection is
  * detached from current thread. In case there was an operation marking
- * connection as read only, it needs to be restored back to its value
+ * connection as read only, it needs to be restored back to its value. If a
+ * read only pool is configured, read only handlers run on it without explicit
+ * transaction. Round trips made to DB are counted per request.
  */
\ No newline at end of file
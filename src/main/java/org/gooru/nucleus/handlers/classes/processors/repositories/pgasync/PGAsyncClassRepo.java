@@ -0,0 +1,187 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.pgasync;
+
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import org.gooru.nucleus.handlers.classes.app.components.ClassCache;
+import org.gooru.nucleus.handlers.classes.processors.DeadlineHelper;
+import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
+import org.gooru.nucleus.handlers.classes.processors.repositories.AsyncClassRepo;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJEntityClass;
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.formatter.JsonFormatterBuilder;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponse;
+import org.gooru.nucleus.handlers.classes.processors.responses.MessageResponseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.asyncsql.AsyncSQLClient;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLConnection;
+
+/**
+ * Async implementation of the hot reads. The checks and the shape of response
+ * are same as the corresponding DB handlers in ActiveJDBC repo, and class is
+ * served from class cache when it is there, formatted the same way as the
+ * handler does. Each statement runs in auto commit mode, as these are reads
+ * where a transaction would only add round trips.
+ */
+class PGAsyncClassRepo implements AsyncClassRepo {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PGAsyncClassRepo.class);
+    private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("messages");
+    private static final String MEMBER_COUNT = "member_count";
+    private static final String COUNT = "count";
+    private final ProcessorContext context;
+    private final AsyncSQLClient client;
+
+    PGAsyncClassRepo(ProcessorContext context, AsyncSQLClient client) {
+        this.context = context;
+        this.client = client;
+    }
+
+    @Override
+    public void fetchClass(Handler<MessageResponse> responseHandler) {
+        if (!checkClassAndUser(responseHandler)) {
+            return;
+        }
+        execute(responseHandler, execution -> fetchClass(execution, response -> execution
+            .query(PGAsyncQueries.FETCH_MEMBERSHIP_COUNT_FOR_CLASS, new JsonArray().add(context.classId()), rs -> {
+                response.put(MEMBER_COUNT, rs.getRows().get(0).getLong(COUNT));
+                execution.finish(MessageResponseFactory.createOkayResponse(response));
+            })));
+    }
+
+    private boolean checkClassAndUser(Handler<MessageResponse> responseHandler) {
+        if (context.classId() == null || context.classId().isEmpty()) {
+            LOGGER.warn("Missing class");
+            responseHandler.handle(
+                MessageResponseFactory.createInvalidRequestResponse(RESOURCE_BUNDLE.getString("missing.class.id")));
+            return false;
+        }
+        if (context.userId() == null || context.userId().isEmpty()) {
+            LOGGER.warn("Invalid user");
+            responseHandler
+                .handle(MessageResponseFactory.createForbiddenResponse(RESOURCE_BUNDLE.getString("not.allowed")));
+            return false;
+        }
+        return true;
+    }
+
+    private void execute(Handler<MessageResponse> responseHandler, Handler<Execution> work) {
+        if (DeadlineHelper.isExpired(context.deadline())) {
+            DeadlineHelper.recordExpired("async read");
+            responseHandler.handle(
+                MessageResponseFactory.createTimedOutResponse(RESOURCE_BUNDLE.getString("request.timed.out")));
+            return;
+        }
+        client.getConnection(res -> {
+            if (res.failed()) {
+                LOGGER.error("Not able to get connection from async data source", res.cause());
+                responseHandler.handle(
+                    MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")));
+                return;
+            }
+            Execution execution = new Execution(res.result(), responseHandler);
+            try {
+                work.handle(execution);
+            } catch (Throwable t) {
+                execution.fail(t);
+            }
+        });
+    }
+
+    /*
+     * Formatted class, from class cache if it is there. Class read here is not
+     * put in cache, as the async client does not give the types which cached
+     * snapshot is made of.
+     */
+    private void fetchClass(Execution execution, Handler<JsonObject> next) {
+        Map<String, Object> snapshot = ClassCache.getInstance().get(context.classId());
+        if (snapshot != null) {
+            next.handle(new JsonObject(JsonFormatterBuilder
+                .buildSimpleJsonFormatter(false, AJEntityClass.FETCH_QUERY_FIELD_LIST)
+                .toJson(AJEntityClass.fromSnapshot(snapshot))));
+            return;
+        }
+        execution.query(PGAsyncQueries.FETCH_CLASS, new JsonArray().add(context.classId()), rs -> {
+            if (rs.getNumRows() == 0) {
+                LOGGER.warn("Not able to find class '{}'", context.classId());
+                execution.finish(MessageResponseFactory.createNotFoundResponse(RESOURCE_BUNDLE.getString("not.found")));
+                return;
+            }
+            next.handle(formatClass(rs.getRows().get(0)));
+        });
+    }
+
+    /*
+     * Jsonb columns come as text, convert them so that the response has them
+     * as JSON like SimpleJsonFormatter does
+     */
+    private static JsonObject formatClass(JsonObject row) {
+        JsonObject result = new JsonObject();
+        for (String field : AJEntityClass.FETCH_QUERY_FIELD_LIST) {
+            Object value = row.getValue(field);
+            if (value != null && (AJEntityClass.GRADE.equals(field) || AJEntityClass.COLLABORATOR.equals(field))) {
+                value = parseJson(value.toString());
+            }
+            result.put(field, value);
+        }
+        return result;
+    }
+
+    private static Object parseJson(String value) {
+        String trimmed = value.trim();
+        if (trimmed.startsWith("[")) {
+            return new JsonArray(trimmed);
+        } else if (trimmed.startsWith("{")) {
+            return new JsonObject(trimmed);
+        }
+        return value;
+    }
+
+    /*
+     * Holds the connection and response handler for one request. Any failure
+     * in between finishes the request with store error. Connection is closed
+     * once response is handed over.
+     */
+    private static final class Execution {
+        private final SQLConnection connection;
+        private final Handler<MessageResponse> responseHandler;
+        private boolean finished = false;
+
+        Execution(SQLConnection connection, Handler<MessageResponse> responseHandler) {
+            this.connection = connection;
+            this.responseHandler = responseHandler;
+        }
+
+        void query(String sql, JsonArray params, Handler<ResultSet> next) {
+            connection.queryWithParams(sql, params, res -> {
+                if (res.failed()) {
+                    fail(res.cause());
+                    return;
+                }
+                try {
+                    next.handle(res.result());
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            });
+        }
+
+        void finish(MessageResponse response) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            connection.close();
+            responseHandler.handle(response);
+        }
+
+        void fail(Throwable t) {
+            LOGGER.error("Not able to fetch from async data source", t);
+            finish(MessageResponseFactory.createInternalErrorResponse(RESOURCE_BUNDLE.getString("error.from.store")));
+        }
+    }
+}
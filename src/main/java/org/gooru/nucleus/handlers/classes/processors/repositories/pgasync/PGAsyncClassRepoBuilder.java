@@ -0,0 +1,15 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.pgasync;
+
+import org.gooru.nucleus.handlers.classes.app.components.AsyncDataSourceRegistry;
+import org.gooru.nucleus.handlers.classes.processors.ProcessorContext;
+import org.gooru.nucleus.handlers.classes.processors.repositories.AsyncClassRepo;
+
+public final class PGAsyncClassRepoBuilder {
+    private PGAsyncClassRepoBuilder() {
+        throw new AssertionError();
+    }
+
+    public static AsyncClassRepo buildAsyncClassRepo(ProcessorContext context) {
+        return new PGAsyncClassRepo(context, AsyncDataSourceRegistry.getInstance().getAsyncClient());
+    }
+}
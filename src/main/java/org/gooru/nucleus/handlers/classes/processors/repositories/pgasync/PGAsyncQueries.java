@@ -0,0 +1,27 @@
+package org.gooru.nucleus.handlers.classes.processors.repositories.pgasync;
+
+import org.gooru.nucleus.handlers.classes.processors.repositories.activejdbc.entities.AJClassMember;
+
+/**
+ * Queries used by the async repo. They mirror the ones used by ActiveJDBC
+ * entities, however the async client does not convert the Postgres types the
+ * way JDBC driver does, so uuid, enum and jsonb columns are cast to text and
+ * timestamps are formatted in SQL to match the output of ActiveJDBC path.
+ */
+final class PGAsyncQueries {
+
+    private static final String ISO_TIMESTAMP_FORMAT = "'YYYY-MM-DD\"T\"HH24:MI:SS\"Z\"'";
+    private static final String CLASS_COLUMNS =
+        "select id::text, creator_id::text, title, description, greeting, grade::text, class_sharing::text, "
+            + "cover_image, code, min_score, end_date::text, course_id::text, collaborator::text, gooru_version, "
+            + "content_visibility::text, is_archived, to_char(created_at, " + ISO_TIMESTAMP_FORMAT
+            + ") as created_at, to_char(updated_at, " + ISO_TIMESTAMP_FORMAT + ") as updated_at from class where ";
+
+    static final String FETCH_CLASS = CLASS_COLUMNS + "id = ?::uuid and is_deleted = false";
+    static final String FETCH_MEMBERSHIP_COUNT_FOR_CLASS =
+        "select count(*) as count from class_member where " + AJClassMember.FETCH_MEMBERSHIP_COUNT_FOR_CLASS_QUERY;
+
+    private PGAsyncQueries() {
+        throw new AssertionError();
+    }
+}
@@ -26,6 +26,20 @@ public final class MessageResponse {
         this.event = response.getJsonObject(MessageConstants.RESP_CONTAINER_EVENT);
     }
 
+    private MessageResponse(DeliveryOptions deliveryOptions, JsonObject reply) {
+        this.deliveryOptions = deliveryOptions;
+        this.reply = reply;
+        this.event = null;
+    }
+
+    /**
+     * Same response without the event, used once the event has been handed
+     * over for publishing by other means
+     */
+    public MessageResponse withoutEvent() {
+        return new MessageResponse(this.deliveryOptions, this.reply);
+    }
+
     public DeliveryOptions deliveryOptions() {
         return this.deliveryOptions;
     }
@@ -46,6 +46,22 @@ public final class MessageResponseFactory {
             .setResponseBody(new JsonObject().put(MessageConstants.MSG_MESSAGE, message)).build();
     }
 
+    public static MessageResponse createOverloadedResponse(String message, long retryAfterSeconds) {
+        return new MessageResponse.Builder().failed().setStatusHttpCode(HttpConstants.HttpStatus.SERVICE_UNAVAILABLE)
+            .setHeader(HttpConstants.HEADER_RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .setResponseBody(new JsonObject().put(MessageConstants.MSG_MESSAGE, message)).build();
+    }
+
+    public static MessageResponse createTimedOutResponse(String message) {
+        return new MessageResponse.Builder().failed().setStatusHttpCode(HttpConstants.HttpStatus.TIMED_OUT)
+            .setResponseBody(new JsonObject().put(MessageConstants.MSG_MESSAGE, message)).build();
+    }
+
+    public static MessageResponse createStatementTimedOutResponse(String message) {
+        return new MessageResponse.Builder().failed().setStatusHttpCode(HttpConstants.HttpStatus.GATEWAY_TIMEOUT)
+            .setResponseBody(new JsonObject().put(MessageConstants.MSG_MESSAGE, message)).build();
+    }
+
     public static MessageResponse createValidationErrorResponse(JsonObject errors) {
         return new MessageResponse.Builder().validationFailed().setStatusBadRequest().setResponseBody(errors).build();
 